@@ -0,0 +1,21 @@
+package pl.javastart.mockitomailing;
+
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.List;
+
+public class BatchSendException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient List<OutgoingMail> delivered;
+
+    public BatchSendException(List<OutgoingMail> delivered, Throwable cause) {
+        super("Batch failed after " + delivered.size() + " delivered mails", cause);
+        this.delivered = delivered;
+    }
+
+    public List<OutgoingMail> getDelivered() {
+        return delivered;
+    }
+}
@@ -0,0 +1,92 @@
+package pl.javastart.mockitomailing;
+
+import pl.javastart.mockitomailing.util.LruMap;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.LongSupplier;
+
+public class CachingEmailAddressChecker implements EmailAddressChecker {
+
+    private EmailAddressChecker delegate;
+    private long positiveTtlNanos;
+    private long negativeTtlNanos;
+    private LongSupplier nanoClock;
+    private Map<String, CheckResult> results;
+
+    public CachingEmailAddressChecker(EmailAddressChecker delegate, Duration positiveTtl, Duration negativeTtl,
+                                      int maxEntries) {
+        this(delegate, positiveTtl, negativeTtl, maxEntries, System::nanoTime);
+    }
+
+    CachingEmailAddressChecker(EmailAddressChecker delegate, Duration positiveTtl, Duration negativeTtl,
+                               int maxEntries, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.positiveTtlNanos = positiveTtl.toNanos();
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.nanoClock = nanoClock;
+        this.results = new LruMap<>(maxEntries);
+    }
+
+    @Override
+    public boolean checkmail(String email) {
+        Boolean cached = getCached(email);
+        if (cached != null) {
+            return cached;
+        }
+        boolean valid = delegate.checkmail(email);
+        store(email, valid);
+        return valid;
+    }
+
+    @Override
+    public Set<String> checkAll(Collection<String> emails) {
+        Set<String> validEmails = new HashSet<>();
+        List<String> uncheckedEmails = new ArrayList<>();
+        for (String email : emails) {
+            Boolean cached = getCached(email);
+            if (cached == null) {
+                uncheckedEmails.add(email);
+            } else if (cached) {
+                validEmails.add(email);
+            }
+        }
+
+        if (!uncheckedEmails.isEmpty()) {
+            Set<String> checkedValidEmails = delegate.checkAll(uncheckedEmails);
+            for (String email : uncheckedEmails) {
+                store(email, checkedValidEmails.contains(email));
+            }
+            validEmails.addAll(checkedValidEmails);
+        }
+        return validEmails;
+    }
+
+    private synchronized Boolean getCached(String email) {
+        CheckResult result = results.get(email);
+        if (result == null) {
+            return null;
+        }
+        if (nanoClock.getAsLong() - result.expiresAt >= 0) {
+            results.remove(email);
+            return null;
+        }
+        return result.valid;
+    }
+
+    private synchronized void store(String email, boolean valid) {
+        long ttl = valid ? positiveTtlNanos : negativeTtlNanos;
+        results.put(email, new CheckResult(valid, nanoClock.getAsLong() + ttl));
+    }
+
+    private static class CheckResult {
+
+        private final boolean valid;
+        private final long expiresAt;
+
+        private CheckResult(boolean valid, long expiresAt) {
+            this.valid = valid;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
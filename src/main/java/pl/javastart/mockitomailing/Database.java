@@ -1,10 +1,17 @@
 package pl.javastart.mockitomailing;
 
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.CompactSignupVisitor;
 import pl.javastart.mockitomailing.model.Course;
 import pl.javastart.mockitomailing.model.Signup;
 import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.util.NameDictionary;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public interface Database {
 
@@ -12,5 +19,44 @@ public interface Database {
     List<Signup> getAllSignups();
     List<Course> getAllCourses();
 
+    default Stream<User> streamAllUsers() {
+        return getAllUsers().stream();
+    }
+
+    default Stream<Signup> streamAllSignups() {
+        return getAllSignups().stream();
+    }
+
+    default Stream<CompactSignup> streamCompactSignups(NameDictionary userNames, NameDictionary courseNames) {
+        return streamAllSignups().map(signup -> CompactSignup.of(signup, userNames, courseNames));
+    }
+
+    default void forEachCompactSignup(NameDictionary userNames, NameDictionary courseNames, CompactSignupVisitor visitor) {
+        try (Stream<CompactSignup> signups = streamCompactSignups(userNames, courseNames)) {
+            signups.forEach(signup -> visitor.visit(signup.getUserId(), signup.getCourseId(),
+                    signup.getAccessFromEpochDay(), signup.getAccessToEpochDay()));
+        }
+    }
+
+    default List<User> getUsersByNames(Collection<String> userNames) {
+        return getAllUsers()
+                .stream()
+                .filter(user -> userNames.contains(user.getName()))
+                .collect(Collectors.toList());
+    }
+
+    default List<Signup> getSignupsWithAccessToBetween(LocalDate from, LocalDate to) {
+        return getAllSignups()
+                .stream()
+                .filter(signup -> !signup.getAccessTo().isBefore(from) && !signup.getAccessTo().isAfter(to))
+                .collect(Collectors.toList());
+    }
+
+    default List<Signup> getSignupsOfUsers(Collection<String> userNames) {
+        return getAllSignups()
+                .stream()
+                .filter(signup -> userNames.contains(signup.getUser()))
+                .collect(Collectors.toList());
+    }
 
 }
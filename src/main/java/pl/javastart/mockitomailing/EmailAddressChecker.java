@@ -1,6 +1,17 @@
 package pl.javastart.mockitomailing;
 
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 public interface EmailAddressChecker {
 
     boolean checkmail(String email);
+
+    default Set<String> checkAll(Collection<String> emails) {
+        return emails
+                .stream()
+                .filter(this::checkmail)
+                .collect(Collectors.toSet());
+    }
 }
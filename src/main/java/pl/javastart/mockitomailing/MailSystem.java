@@ -1,7 +1,35 @@
 package pl.javastart.mockitomailing;
 
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 public interface MailSystem {
 
     void sendEmail(String emailAddress, String title, String text);
 
+    default void sendEncodedEmail(String emailAddress, String title, ByteBuffer utf8Text) {
+        sendEmail(emailAddress, title, StandardCharsets.UTF_8.decode(utf8Text).toString());
+    }
+
+    default void sendBatch(Collection<OutgoingMail> mails) {
+        List<OutgoingMail> delivered = new ArrayList<>(mails.size());
+        for (OutgoingMail mail : mails) {
+            try {
+                if (mail.isEncoded()) {
+                    sendEncodedEmail(mail.getEmailAddress(), mail.getTitle(), mail.getEncodedText());
+                } else {
+                    sendEmail(mail.getEmailAddress(), mail.getTitle(), mail.getText());
+                }
+            } catch (RuntimeException e) {
+                throw new BatchSendException(delivered, e);
+            }
+            delivered.add(mail);
+        }
+    }
+
 }
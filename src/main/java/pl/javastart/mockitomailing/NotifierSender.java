@@ -1,22 +1,61 @@
 package pl.javastart.mockitomailing;
 
+import pl.javastart.mockitomailing.dispatch.MailDelivery;
+import pl.javastart.mockitomailing.dispatch.MailDispatcher;
+import pl.javastart.mockitomailing.dispatch.MailSendResult;
+import pl.javastart.mockitomailing.dispatch.SequentialMailDispatcher;
+import pl.javastart.mockitomailing.flow.AsyncMappingProcessor;
+import pl.javastart.mockitomailing.flow.CollectingSubscriber;
+import pl.javastart.mockitomailing.flow.StreamPublisher;
+import pl.javastart.mockitomailing.metrics.MeteredMailSystem;
+import pl.javastart.mockitomailing.metrics.NotifierMetrics;
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.DryRunMail;
+import pl.javastart.mockitomailing.model.DryRunPlan;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+import pl.javastart.mockitomailing.model.PlannedMail;
+import pl.javastart.mockitomailing.model.SendPlan;
 import pl.javastart.mockitomailing.model.Signup;
 import pl.javastart.mockitomailing.model.User;
 import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.model.UserSignups;
+import pl.javastart.mockitomailing.util.ByteBufferPool;
 import pl.javastart.mockitomailing.util.DateProvider;
+import pl.javastart.mockitomailing.util.EligibilityCalendar;
+import pl.javastart.mockitomailing.util.EntityCatalog;
+import pl.javastart.mockitomailing.util.NameDictionary;
+import pl.javastart.mockitomailing.util.Shard;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class NotifierSender {
 
+    private static final int DEFAULT_PARALLEL_GROUPING_THRESHOLD = 100_000;
+    private static final int PIPELINE_BUFFER_SIZE = 256;
+
     private MailSystem mailSystem;
     private Database database;
     private DateProvider dateProvider;
     private UserMessageProvider messageProvider;
     private EmailAddressChecker emailAddressChecker;
+    private Function<MailSystem, MailDispatcher> mailDispatcherFactory;
+    private int parallelGroupingThreshold = DEFAULT_PARALLEL_GROUPING_THRESHOLD;
+    private SentLog sentLog;
+    private Shard shard = Shard.ALL;
+    private NotifierMetrics metrics = NotifierMetrics.NONE;
+    private ByteBufferPool messageBufferPool;
+    private volatile EligibilityCalendar calendar;
 
     public NotifierSender(MailSystem mailSystem, Database database, DateProvider dateProvider, UserMessageProvider messageProvider, EmailAddressChecker emailAddressChecker) {
         this.mailSystem = mailSystem;
@@ -26,55 +65,562 @@ public class NotifierSender {
         this.emailAddressChecker = emailAddressChecker;
     }
 
-    public void prepareAndSendMails() {
+    public void setMailDispatcher(MailDispatcher mailDispatcher) {
+        this.mailDispatcherFactory = mailSystem -> mailDispatcher;
+    }
+
+    public void setMailDispatcherFactory(Function<MailSystem, MailDispatcher> mailDispatcherFactory) {
+        this.mailDispatcherFactory = mailDispatcherFactory;
+    }
+
+    public void setParallelGroupingThreshold(int parallelGroupingThreshold) {
+        this.parallelGroupingThreshold = parallelGroupingThreshold;
+    }
+
+    public void setSentLog(SentLog sentLog) {
+        this.sentLog = sentLog;
+    }
+
+    public void setShard(Shard shard) {
+        this.shard = shard;
+    }
+
+    public void setMetrics(NotifierMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void setMessageBufferPool(ByteBufferPool messageBufferPool) {
+        this.messageBufferPool = messageBufferPool;
+    }
+
+    public List<MailSendResult> prepareAndSendMails() {
+        return run(this::sendMailsFromAllSignups);
+    }
+
+    public List<MailSendResult> prepareAndSendMailsInBoundedMemory() {
+        return run(this::sendMailsFromSignupStream);
+    }
+
+    public List<MailSendResult> prepareAndSendMailsUsingDateIndex() {
+        return run(this::sendMailsUsingDateIndex);
+    }
+
+    public List<MailSendResult> prepareAndSendMailsFromCompactSignups() {
+        return run(this::sendMailsFromCompactSignups);
+    }
+
+    public List<MailSendResult> prepareAndSendMailsThroughPipeline() {
+        return run(this::sendMailsThroughPipeline);
+    }
+
+    public List<SendPlan> planMails(LocalDate firstDay, LocalDate lastDay) {
+        List<EligibilityCalendar> calendars = new ArrayList<>();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            calendars.add(EligibilityCalendar.of(day));
+        }
+
+        List<Signup> signups = database.getAllSignups();
+        metrics.signupsScanned(signups.size());
+        Map<String, List<Signup>> signupsByUser = signups
+                .stream()
+                .filter(signup -> shard.contains(signup.getUser()))
+                .collect(Collectors.groupingBy(Signup::getUser));
+
+        List<Map<String, UserSignups>> usersWithAcceptableSignupByDay = new ArrayList<>();
+        Set<String> plannedUsersNames = new HashSet<>();
+        for (EligibilityCalendar calendar : calendars) {
+            Map<String, UserSignups> usersWithAcceptableSignup = new HashMap<>();
+            signupsByUser.forEach((user, userSignupList) -> {
+                UserSignups userSignups = new UserSignups();
+                userSignupList.forEach(signup -> userSignups.add(signup, calendar.isAcceptable(signup.getAccessTo())));
+                if (userSignups.hasAcceptableSignup()) {
+                    usersWithAcceptableSignup.put(user, userSignups);
+                    plannedUsersNames.add(user);
+                }
+            });
+            usersWithAcceptableSignupByDay.add(usersWithAcceptableSignup);
+        }
+
+        List<User> plannedUsers = database.getUsersByNames(plannedUsersNames);
+        List<SendPlan> plans = new ArrayList<>();
+        for (int i = 0; i < calendars.size(); i++) {
+            EligibilityCalendar calendar = calendars.get(i);
+            Map<String, UserSignups> usersWithAcceptableSignup = usersWithAcceptableSignupByDay.get(i);
+            List<PlannedMail> mails = new ArrayList<>();
+            for (User user : plannedUsers) {
+                UserSignups userSignups = usersWithAcceptableSignup.get(user.getName());
+                if (userSignups != null) {
+                    Signup acceptableSignup = userSignups.getAcceptableSignup();
+                    mails.add(new PlannedMail(prepareMail(user, userSignups, calendar.getToday()),
+                            acceptableSignup, calendar.thresholdOf(acceptableSignup.getAccessTo())));
+                }
+            }
+            plans.add(new SendPlan(calendar.getToday(), mails));
+        }
+        return plans;
+    }
+
+    public List<MailSendResult> sendPlannedMails(SendPlan plan) {
+        return run(today -> {
+            if (!plan.getDay().equals(today)) {
+                throw new IllegalArgumentException("Plan for " + plan.getDay() + " cannot be sent on " + today);
+            }
+            return sendPlannedMails(plan, calendarFor(today));
+        });
+    }
+
+    public DryRunPlan dryRun() {
         LocalDate today = dateProvider.getCurrentDate();
+        EligibilityCalendar calendar = calendarFor(today);
+        Map<String, UserSignups> usersWithAcceptableSignup = groupAcceptableUserSignups(database.getAllSignups(), calendar);
+        if (sentLog != null) {
+            usersWithAcceptableSignup.values().removeIf(userSignups -> isAlreadySent(userSignups, calendar));
+        }
+        if (usersWithAcceptableSignup.isEmpty()) {
+            return new DryRunPlan(today, Collections.emptyList(), Collections.emptyList());
+        }
+
+        List<User> recipients = database.getAllUsers()
+                .stream()
+                .filter(user -> usersWithAcceptableSignup.containsKey(user.getName()))
+                .collect(Collectors.toList());
+        Set<String> validEmails = emailAddressChecker.checkAll(recipients
+                .stream()
+                .map(User::getEmail)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+
+        List<String> rejectedEmails = new ArrayList<>();
+        List<User> validRecipients = new ArrayList<>();
+        for (User user : recipients) {
+            if (validEmails.contains(user.getEmail())) {
+                validRecipients.add(user);
+            } else {
+                rejectedEmails.add(user.getEmail());
+            }
+        }
+
+        List<DryRunMail> mails = validRecipients
+                .parallelStream()
+                .map(user -> {
+                    UserSignups userSignups = usersWithAcceptableSignup.get(user.getName());
+                    Signup acceptableSignup = userSignups.getAcceptableSignup();
+                    return new DryRunMail(user, acceptableSignup, userSignups.getSignups(),
+                            calendar.thresholdOf(acceptableSignup.getAccessTo()),
+                            messageProvider.measureMessage(user, acceptableSignup, userSignups.getSignups(), today));
+                })
+                .collect(Collectors.toList());
+        return new DryRunPlan(today, mails, rejectedEmails);
+    }
+
+    private List<MailSendResult> run(Function<LocalDate, List<MailSendResult>> mode) {
+        long start = System.nanoTime();
+        List<MailSendResult> results = mode.apply(startRun());
+        long failed = results.stream().filter(result -> !result.isSuccess()).count();
+        metrics.runCompleted(System.nanoTime() - start, results.size() - failed, failed);
+        return results;
+    }
+
+    private List<MailSendResult> sendMailsFromAllSignups(LocalDate today) {
         List<User> allUsers = database.getAllUsers();
         List<Signup> signups = database.getAllSignups();
+        metrics.signupsScanned(signups.size());
 
         if (!signups.isEmpty()) {
+            EligibilityCalendar calendar = calendarFor(today);
+            Map<String, UserSignups> usersWithAcceptableSignup = groupAcceptableUserSignups(signups, calendar);
 
-            Map<String, Signup> usersNameWithAcceptableSignup = getUsersWithAcceptableSignup(today, signups);
-
-            if (!usersNameWithAcceptableSignup.isEmpty()) {
-                Map<String, List<Signup>> usersWithAllSignups = getUserWithAllSignups(signups,
-                        usersNameWithAcceptableSignup);
-
-                allUsers
-                        .stream()
-                        .filter(user -> emailAddressChecker.checkmail(user.getEmail())
-                                && usersNameWithAcceptableSignup.containsKey(user.getName()))
-                        .forEach(user -> mailSystem.sendEmail(user.getEmail(),
-                                messageProvider.prepareTitle(),
-                                messageProvider.prepareMessage(user, usersNameWithAcceptableSignup.get(user.getName()),
-                                        usersWithAllSignups.get(user.getName()),
-                                        today)));
+            if (!usersWithAcceptableSignup.isEmpty()) {
+                return sendMails(allUsers.stream(), usersWithAcceptableSignup, calendar);
             }
         }
+        return Collections.emptyList();
     }
-    private Map<String, List<Signup>> getUserWithAllSignups(List<Signup> signups, Map<String, Signup> usersNameAndAcceptableSignup) {
-        return signups
+
+    private List<MailSendResult> sendMailsFromSignupStream(LocalDate today) {
+        EligibilityCalendar calendar = calendarFor(today);
+
+        LongAdder signupsScanned = new LongAdder();
+        Set<String> usersNameWithAcceptableSignup;
+        try (Stream<Signup> signups = database.streamAllSignups()) {
+            usersNameWithAcceptableSignup = signups
+                    .peek(signup -> signupsScanned.increment())
+                    .filter(signup -> calendar.isAcceptable(signup.getAccessTo()) && shard.contains(signup.getUser()))
+                    .map(Signup::getUser)
+                    .collect(Collectors.toSet());
+        }
+        metrics.signupsScanned(signupsScanned.sum());
+
+        if (!usersNameWithAcceptableSignup.isEmpty()) {
+            Map<String, UserSignups> usersWithAcceptableSignup;
+            try (Stream<Signup> signups = database.streamAllSignups()) {
+                usersWithAcceptableSignup = signups
+                        .filter(signup -> usersNameWithAcceptableSignup.contains(signup.getUser()))
+                        .collect(groupingAcceptableUserSignups(calendar));
+            }
+
+            try (Stream<User> users = database.streamAllUsers()) {
+                return sendMails(users, usersWithAcceptableSignup, calendar);
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<MailSendResult> sendMailsUsingDateIndex(LocalDate today) {
+        EligibilityCalendar calendar = calendarFor(today);
+
+        Set<String> usersNameWithAcceptableAccessTo = new HashSet<>();
+        calendar.forEachRange((from, to) -> {
+            List<Signup> candidates = database.getSignupsWithAccessToBetween(from, to);
+            metrics.signupsScanned(candidates.size());
+            candidates.stream()
+                    .filter(signup -> shard.contains(signup.getUser()))
+                    .forEach(signup -> usersNameWithAcceptableAccessTo.add(signup.getUser()));
+        });
+
+        if (!usersNameWithAcceptableAccessTo.isEmpty()) {
+            Map<String, UserSignups> usersWithAcceptableSignup = database
+                    .getSignupsOfUsers(usersNameWithAcceptableAccessTo)
+                    .stream()
+                    .collect(groupingAcceptableUserSignups(calendar));
+
+            return sendMails(database.getUsersByNames(usersWithAcceptableSignup.keySet()).stream(),
+                    usersWithAcceptableSignup, calendar);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<MailSendResult> sendMailsFromCompactSignups(LocalDate today) {
+        EligibilityCalendar calendar = calendarFor(today);
+        EntityCatalog catalog = EntityCatalog.of(database);
+        NameDictionary userNames = catalog.getUserNames();
+        NameDictionary courseNames = catalog.getCourseNames();
+
+        long[] signupsScanned = new long[1];
+        BitSet usersWithAcceptableAccessTo = new BitSet();
+        database.forEachCompactSignup(userNames, courseNames, (userId, courseId, accessFrom, accessTo) -> {
+            signupsScanned[0]++;
+            if (calendar.isAcceptable(accessTo) && shard.contains(userNames.nameOf(userId))) {
+                usersWithAcceptableAccessTo.set(userId);
+            }
+        });
+        metrics.signupsScanned(signupsScanned[0]);
+
+        if (!usersWithAcceptableAccessTo.isEmpty()) {
+            UserSignups[] signupsByUserId = new UserSignups[usersWithAcceptableAccessTo.length()];
+            database.forEachCompactSignup(userNames, courseNames, (userId, courseId, accessFrom, accessTo) -> {
+                if (usersWithAcceptableAccessTo.get(userId)) {
+                    if (signupsByUserId[userId] == null) {
+                        signupsByUserId[userId] = new UserSignups();
+                    }
+                    signupsByUserId[userId].add(new CompactSignup(userId, courseId, accessFrom, accessTo)
+                            .toSignup(userNames, courseNames), calendar.isAcceptable(accessTo));
+                }
+            });
+            long acceptableSignupsFound = 0;
+            List<Recipient> recipients = new ArrayList<>();
+            for (int userId = usersWithAcceptableAccessTo.nextSetBit(0); userId >= 0;
+                 userId = usersWithAcceptableAccessTo.nextSetBit(userId + 1)) {
+                UserSignups userSignups = signupsByUserId[userId];
+                acceptableSignupsFound += userSignups.getAcceptableSignupCount();
+                User user = catalog.userOf(userId);
+                if (user != null && !isAlreadySent(userSignups, calendar)) {
+                    recipients.add(new Recipient(user, userSignups));
+                }
+            }
+            metrics.acceptableSignupsFound(acceptableSignupsFound);
+
+            return sendMailsToRecipients(recipients, calendar);
+        }
+        return Collections.emptyList();
+    }
+
+    private List<MailSendResult> sendMailsThroughPipeline(LocalDate today) {
+        EligibilityCalendar calendar = calendarFor(today);
+
+        LongAdder signupsScanned = new LongAdder();
+        Set<String> usersNameWithAcceptableSignup = CollectingSubscriber.collect(
+                new StreamPublisher<>(() -> database.streamAllSignups()
+                        .peek(signup -> signupsScanned.increment())
+                        .filter(signup -> calendar.isAcceptable(signup.getAccessTo()) && shard.contains(signup.getUser()))),
+                Collectors.mapping(Signup::getUser, Collectors.toSet()), PIPELINE_BUFFER_SIZE);
+        metrics.signupsScanned(signupsScanned.sum());
+        if (usersNameWithAcceptableSignup.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, UserSignups> usersWithAcceptableSignup = CollectingSubscriber.collect(
+                new StreamPublisher<>(() -> database.streamAllSignups()
+                        .filter(signup -> usersNameWithAcceptableSignup.contains(signup.getUser()))),
+                groupingAcceptableUserSignups(calendar), PIPELINE_BUFFER_SIZE);
+        skipAlreadySent(usersWithAcceptableSignup, calendar);
+
+        List<User> acceptableUsers = database.getUsersByNames(usersWithAcceptableSignup.keySet());
+        Set<String> validEmails = emailAddressChecker.checkAll(acceptableUsers
                 .stream()
-                .filter(signup -> usersNameAndAcceptableSignup.containsKey(signup.getUser()))
-                .collect(Collectors.groupingBy(Signup::getUser));
+                .map(User::getEmail)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        List<User> validUsers = acceptableUsers
+                .stream()
+                .filter(user -> validEmails.contains(user.getEmail()))
+                .collect(Collectors.toList());
+        metrics.recipientsRejectedByEmailChecker(acceptableUsers.size() - validUsers.size());
+        if (validUsers.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        MailSystem pipelineMailSystem = getMailSystem();
+        Map<OutgoingMail, Signup> acceptableSignupByMail = Collections.synchronizedMap(new IdentityHashMap<>());
+        ExecutorService renderExecutor = newPipelineStageExecutor("mail-render");
+        ExecutorService sendExecutor = newPipelineStageExecutor("mail-send");
+        try {
+            AsyncMappingProcessor<User, OutgoingMail> render = new AsyncMappingProcessor<>(user -> {
+                UserSignups userSignups = usersWithAcceptableSignup.get(user.getName());
+                OutgoingMail mail = prepareMail(user, userSignups, today);
+                acceptableSignupByMail.put(mail, userSignups.getAcceptableSignup());
+                return mail;
+            }, renderExecutor, PIPELINE_BUFFER_SIZE);
+            AsyncMappingProcessor<OutgoingMail, MailSendResult> send = new AsyncMappingProcessor<>(mail -> {
+                MailSendResult result = send(pipelineMailSystem, mail);
+                Signup acceptableSignup = acceptableSignupByMail.remove(mail);
+                if (sentLog != null && result.isSuccess()) {
+                    sentLog.append(acceptableSignup, calendar.thresholdOf(acceptableSignup.getAccessTo()));
+                }
+                return result;
+            }, sendExecutor, PIPELINE_BUFFER_SIZE);
+            CollectingSubscriber<MailSendResult, ?, List<MailSendResult>> results =
+                    new CollectingSubscriber<>(Collectors.toList(), PIPELINE_BUFFER_SIZE);
+
+            send.subscribe(results);
+            render.subscribe(send);
+            new StreamPublisher<>(validUsers::stream).subscribe(render);
+
+            List<MailSendResult> sent = results.join();
+            markRunCompleteIfAllSent(sent, today);
+            return sent;
+        } finally {
+            renderExecutor.shutdown();
+            sendExecutor.shutdown();
+        }
     }
 
-    private Map<String, Signup> getUsersWithAcceptableSignup(LocalDate today, List<Signup> signups) {
-        return signups
+    private List<MailSendResult> sendPlannedMails(SendPlan plan, EligibilityCalendar calendar) {
+        List<PlannedMail> pendingMails = plan.getMails()
                 .stream()
-                .filter(signup -> isAcceptableSignup(today, signup))
-                .collect(Collectors.toMap(Signup::getUser, signup -> signup,
-                        (duplicateOne, duplicateTwo) -> duplicateOne));
+                .filter(plannedMail -> sentLog == null
+                        || !sentLog.contains(plannedMail.getAcceptableSignup(), plannedMail.getThreshold()))
+                .collect(Collectors.toList());
+        if (pendingMails.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> validEmails = emailAddressChecker.checkAll(pendingMails
+                .stream()
+                .map(plannedMail -> plannedMail.getMail().getEmailAddress())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        List<PlannedMail> validMails = pendingMails
+                .stream()
+                .filter(plannedMail -> validEmails.contains(plannedMail.getMail().getEmailAddress()))
+                .collect(Collectors.toList());
+        metrics.recipientsRejectedByEmailChecker(pendingMails.size() - validMails.size());
+
+        Map<OutgoingMail, Signup> acceptableSignupByMail = Collections.synchronizedMap(new IdentityHashMap<>());
+        validMails.forEach(plannedMail -> acceptableSignupByMail.put(plannedMail.getMail(),
+                plannedMail.getAcceptableSignup()));
+        return dispatch(validMails.stream().map(PlannedMail::getMail), acceptableSignupByMail,
+                Collections.emptyMap(), calendar);
     }
 
-    private boolean isAcceptableSignup(LocalDate today, Signup signup) {
-        long monthsDifference = ChronoUnit.MONTHS.between(today, signup.getAccessTo());
-        long daysDifference = ChronoUnit.DAYS.between(today, signup.getAccessTo());
+    private List<MailSendResult> sendMails(Stream<User> users, Map<String, UserSignups> usersWithAcceptableSignup,
+                                           EligibilityCalendar calendar) {
+        skipAlreadySent(usersWithAcceptableSignup, calendar);
+
+        return sendMailsToRecipients(users
+                .filter(user -> usersWithAcceptableSignup.containsKey(user.getName()))
+                .map(user -> new Recipient(user, usersWithAcceptableSignup.get(user.getName())))
+                .collect(Collectors.toList()), calendar);
+    }
+
+    private List<MailSendResult> sendMailsToRecipients(List<Recipient> recipients, EligibilityCalendar calendar) {
+        LocalDate today = calendar.getToday();
+        if (recipients.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<String> validEmails = emailAddressChecker.checkAll(recipients
+                .stream()
+                .map(recipient -> recipient.user.getEmail())
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        List<Recipient> validRecipients = recipients
+                .stream()
+                .filter(recipient -> validEmails.contains(recipient.user.getEmail()))
+                .collect(Collectors.toList());
+        metrics.recipientsRejectedByEmailChecker(recipients.size() - validRecipients.size());
+
+        Map<OutgoingMail, Signup> acceptableSignupByMail = Collections.synchronizedMap(new IdentityHashMap<>());
+        Map<OutgoingMail, ByteBuffer> pooledBufferByMail = Collections.synchronizedMap(new IdentityHashMap<>());
+        return dispatch(validRecipients
+                .stream()
+                .map(recipient -> {
+                    User user = recipient.user;
+                    UserSignups userSignups = recipient.userSignups;
+                    OutgoingMail mail = messageBufferPool != null
+                            ? preparePooledMail(user, userSignups, today, pooledBufferByMail)
+                            : prepareMail(user, userSignups, today);
+                    if (sentLog != null) {
+                        acceptableSignupByMail.put(mail, userSignups.getAcceptableSignup());
+                    }
+                    return mail;
+                }), acceptableSignupByMail, pooledBufferByMail, calendar);
+    }
+
+    private List<MailSendResult> dispatch(Stream<OutgoingMail> mails, Map<OutgoingMail, Signup> acceptableSignupByMail,
+                                          Map<OutgoingMail, ByteBuffer> pooledBufferByMail, EligibilityCalendar calendar) {
+        List<MailSendResult> results = Collections.synchronizedList(new ArrayList<>());
+        getMailDispatcher().dispatch(mails, result -> {
+            results.add(result);
+            ByteBuffer pooledBuffer = pooledBufferByMail.remove(result.getMail());
+            if (pooledBuffer != null) {
+                if (!result.isSuccess()) {
+                    result.getMail().detachEncodedText();
+                }
+                messageBufferPool.release(pooledBuffer);
+            }
+            if (sentLog != null && result.isSuccess()) {
+                Signup acceptableSignup = acceptableSignupByMail.remove(result.getMail());
+                sentLog.append(acceptableSignup, calendar.thresholdOf(acceptableSignup.getAccessTo()));
+            }
+        });
+
+        List<MailSendResult> sent = new ArrayList<>(results);
+        markRunCompleteIfAllSent(sent, calendar.getToday());
+        return sent;
+    }
+
+    private void skipAlreadySent(Map<String, UserSignups> usersWithAcceptableSignup, EligibilityCalendar calendar) {
+        metrics.acceptableSignupsFound(usersWithAcceptableSignup.values()
+                .stream()
+                .mapToLong(UserSignups::getAcceptableSignupCount)
+                .sum());
+        if (sentLog != null) {
+            usersWithAcceptableSignup.values().removeIf(userSignups -> isAlreadySent(userSignups, calendar));
+        }
+    }
+
+    private boolean isAlreadySent(UserSignups userSignups, EligibilityCalendar calendar) {
+        return sentLog != null && sentLog.contains(userSignups.getAcceptableSignup(),
+                calendar.thresholdOf(userSignups.getAcceptableSignup().getAccessTo()));
+    }
+
+    private void markRunCompleteIfAllSent(List<MailSendResult> results, LocalDate today) {
+        if (sentLog != null && results.stream().allMatch(MailSendResult::isSuccess)) {
+            sentLog.setWatermark(today);
+        }
+    }
+
+    private LocalDate startRun() {
+        LocalDate today = dateProvider.getCurrentDate();
+        if (sentLog != null && sentLog.getWatermark() != null && sentLog.getWatermark().isBefore(today)) {
+            try {
+                sentLog.compact(today);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return today;
+    }
+
+    private MailDispatcher getMailDispatcher() {
+        if (mailDispatcherFactory != null) {
+            return mailDispatcherFactory.apply(getMailSystem());
+        }
+        return new SequentialMailDispatcher(getMailSystem());
+    }
+
+    private MailSystem getMailSystem() {
+        return metrics == NotifierMetrics.NONE ? mailSystem : new MeteredMailSystem(mailSystem, metrics);
+    }
+
+    private static MailSendResult send(MailSystem mailSystem, OutgoingMail mail) {
+        try {
+            MailDelivery.deliver(mailSystem, mail);
+            return MailSendResult.success(mail);
+        } catch (RuntimeException e) {
+            return MailSendResult.failure(mail, e);
+        }
+    }
+
+    private static ExecutorService newPipelineStageExecutor(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private OutgoingMail prepareMail(User user, UserSignups userSignups, LocalDate today) {
+        long start = System.nanoTime();
+        String message = messageProvider.prepareMessage(user, userSignups.getAcceptableSignup(), userSignups.getSignups(), today);
+        metrics.messageRendered(System.nanoTime() - start);
+        return new OutgoingMail(user.getEmail(), messageProvider.prepareTitle(), message);
+    }
+
+    private OutgoingMail preparePooledMail(User user, UserSignups userSignups, LocalDate today,
+                                           Map<OutgoingMail, ByteBuffer> pooledBufferByMail) {
+        long start = System.nanoTime();
+        ByteBuffer message = messageProvider.prepareMessage(user, userSignups.getAcceptableSignup(), userSignups.getSignups(),
+                today, messageBufferPool.acquire());
+        metrics.messageRendered(System.nanoTime() - start);
+        OutgoingMail mail = new OutgoingMail(user.getEmail(), messageProvider.prepareTitle(), message);
+        pooledBufferByMail.put(mail, message);
+        return mail;
+    }
+
+    private Map<String, UserSignups> groupAcceptableUserSignups(List<Signup> signups, EligibilityCalendar calendar) {
+        Stream<Signup> signupStream = signups.size() >= parallelGroupingThreshold
+                ? signups.parallelStream()
+                : signups.stream();
+        return signupStream
+                .filter(signup -> shard.contains(signup.getUser()))
+                .collect(groupingAcceptableUserSignups(calendar));
+    }
+
+    private Collector<Signup, ?, Map<String, UserSignups>> groupingAcceptableUserSignups(EligibilityCalendar calendar) {
+        return Collector.of(
+                HashMap::new,
+                (Map<String, UserSignups> usersSignups, Signup signup) -> usersSignups
+                        .computeIfAbsent(signup.getUser(), user -> new UserSignups())
+                        .add(signup, calendar.isAcceptable(signup.getAccessTo())),
+                (earlier, later) -> {
+                    later.forEach((user, userSignups) -> earlier.merge(user, userSignups, UserSignups::merge));
+                    return earlier;
+                },
+                usersSignups -> {
+                    usersSignups.values().removeIf(userSignups -> !userSignups.hasAcceptableSignup());
+                    return usersSignups;
+                });
+    }
+
+    private EligibilityCalendar calendarFor(LocalDate today) {
+        EligibilityCalendar current = calendar;
+        if (current == null || !current.getToday().equals(today)) {
+            current = EligibilityCalendar.of(today);
+            calendar = current;
+        }
+        return current;
+    }
+
+    boolean isAcceptableSignup(LocalDate today, Signup signup) {
+        return calendarFor(today).isAcceptable(signup.getAccessTo());
+    }
+
+    private static class Recipient {
+
+        private final User user;
+        private final UserSignups userSignups;
 
-        if (monthsDifference == 3 || monthsDifference == 1) {
-            return true;
-        } else if (daysDifference == 7 || daysDifference == 1) {
-            return true;
+        private Recipient(User user, UserSignups userSignups) {
+            this.user = user;
+            this.userSignups = userSignups;
         }
-        return false;
     }
 }
@@ -0,0 +1,169 @@
+package pl.javastart.mockitomailing;
+
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+import pl.javastart.mockitomailing.model.Signup;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SentLog implements Closeable {
+
+    private static final String SENT = "S";
+    private static final String WATERMARK = "W";
+    private static final String SEPARATOR = "\t";
+
+    private final Path file;
+    private final Set<String> sentKeys = new HashSet<>();
+    private LocalDate watermark;
+    private BufferedWriter writer;
+
+    private SentLog(Path file) {
+        this.file = file;
+    }
+
+    public static SentLog open(Path file) throws IOException {
+        SentLog sentLog = new SentLog(file);
+        if (Files.exists(file)) {
+            truncateTornLine(file);
+            Files.readAllLines(file, StandardCharsets.UTF_8).forEach(sentLog::load);
+        }
+        sentLog.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return sentLog;
+    }
+
+    public synchronized boolean contains(Signup signup, NotificationThreshold threshold) {
+        return sentKeys.contains(key(signup, threshold));
+    }
+
+    public synchronized void append(Signup signup, NotificationThreshold threshold) {
+        String key = key(signup, threshold);
+        if (sentKeys.add(key)) {
+            write(SENT + SEPARATOR + key);
+        }
+    }
+
+    public synchronized LocalDate getWatermark() {
+        return watermark;
+    }
+
+    public synchronized void setWatermark(LocalDate watermark) {
+        this.watermark = watermark;
+        write(WATERMARK + SEPARATOR + watermark);
+    }
+
+    public synchronized int size() {
+        return sentKeys.size();
+    }
+
+    public synchronized void compact(LocalDate today) throws IOException {
+        sentKeys.removeIf(key -> LocalDate.parse(key.split(SEPARATOR)[2]).isBefore(today));
+
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+        try (BufferedWriter compactedWriter = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+            for (String key : sentKeys) {
+                compactedWriter.write(SENT + SEPARATOR + key);
+                compactedWriter.newLine();
+            }
+            if (watermark != null) {
+                compactedWriter.write(WATERMARK + SEPARATOR + watermark);
+                compactedWriter.newLine();
+            }
+        }
+        writer.close();
+        try {
+            Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+
+    private void load(String line) {
+        String[] fields = line.split(SEPARATOR, 2);
+        if (fields.length < 2) {
+            return;
+        }
+        try {
+            if (SENT.equals(fields[0]) && fields[1].split(SEPARATOR).length == 4) {
+                LocalDate.parse(fields[1].split(SEPARATOR)[2]);
+                sentKeys.add(fields[1]);
+            } else if (WATERMARK.equals(fields[0])) {
+                watermark = LocalDate.parse(fields[1]);
+            }
+        } catch (DateTimeParseException e) {
+            // a line torn by a crash mid-write; the tuple was not durably logged
+        }
+    }
+
+    private static void truncateTornLine(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            long end = size;
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            while (end > 0) {
+                lastByte.clear();
+                channel.read(lastByte, end - 1);
+                if (lastByte.get(0) == '\n') {
+                    break;
+                }
+                end--;
+            }
+            if (end < size) {
+                channel.truncate(end);
+            }
+        }
+    }
+
+    private void write(String line) {
+        try {
+            writer.write(line);
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String key(Signup signup, NotificationThreshold threshold) {
+        return escape(signup.getUser()) + SEPARATOR + escape(signup.getCourse()) + SEPARATOR + signup.getAccessTo()
+                + SEPARATOR + threshold;
+    }
+
+    private static String escape(String field) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            String replacement = c == '\\' ? "\\\\" : c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (replacement != null && escaped == null) {
+                escaped = new StringBuilder(field.length() + 8).append(field, 0, i);
+            }
+            if (escaped != null) {
+                if (replacement != null) {
+                    escaped.append(replacement);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped != null ? escaped.toString() : field;
+    }
+}
@@ -0,0 +1,42 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.EmailAddressChecker;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+public class BasicEmailAddressChecker implements EmailAddressChecker {
+
+    @Override
+    public boolean checkmail(String email) {
+        if (email == null) {
+            return false;
+        }
+        int at = email.indexOf('@');
+        if (at <= 0 || at != email.lastIndexOf('@')) {
+            return false;
+        }
+        int dot = email.lastIndexOf('.');
+        if (dot <= at + 1 || dot == email.length() - 1) {
+            return false;
+        }
+        for (int i = 0; i < email.length(); i++) {
+            if (Character.isWhitespace(email.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Set<String> checkAll(Collection<String> emails) {
+        Set<String> validEmails = new HashSet<>();
+        for (String email : emails) {
+            if (checkmail(email)) {
+                validEmails.add(email);
+            }
+        }
+        return validEmails;
+    }
+}
@@ -0,0 +1,261 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.NotifierSender;
+import pl.javastart.mockitomailing.SentLog;
+import pl.javastart.mockitomailing.database.SnapshotDatabase;
+import pl.javastart.mockitomailing.dispatch.MailSendResult;
+import pl.javastart.mockitomailing.model.DryRunPlan;
+import pl.javastart.mockitomailing.model.SendPlan;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class NotifierBatch {
+
+    static final String USAGE = "Usage: java " + NotifierBatch.class.getName() + " --data <directory|snapshot>"
+            + " [--write-snapshot <file>] [--date <yyyy-mm-dd>] [--mode compact|all|bounded|date-index|pipeline]"
+            + " [--outbox <file>] [--sent-log <file>] [--dry-run] [--plan] [--repeat <runs>]"
+            + " [--plan-dir <directory> [--plan-days <days>]]";
+
+    enum Mode {
+        COMPACT, ALL, BOUNDED, DATE_INDEX, PIPELINE
+    }
+
+    private Path dataPath;
+    private Path snapshotFile;
+    private LocalDate date;
+    private Mode mode = Mode.COMPACT;
+    private Path outbox;
+    private Path sentLogFile;
+    private boolean dryRun;
+    private boolean plan;
+    private int repeat = 1;
+    private Path planDirectory;
+    private int planDays;
+    private final List<Long> runNanos = new ArrayList<>();
+
+    public static void main(String[] args) throws IOException {
+        NotifierBatch batch;
+        try {
+            batch = fromArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (batch.run(System.err) > 0) {
+            System.exit(1);
+        }
+    }
+
+    static NotifierBatch fromArguments(String... args) {
+        NotifierBatch batch = new NotifierBatch();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if ("--dry-run".equals(option)) {
+                batch.dryRun = true;
+                continue;
+            }
+            if ("--plan".equals(option)) {
+                batch.plan = true;
+                continue;
+            }
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--data":
+                    batch.dataPath = Paths.get(value);
+                    break;
+                case "--write-snapshot":
+                    batch.snapshotFile = Paths.get(value);
+                    break;
+                case "--date":
+                    try {
+                        batch.date = TsvDatabaseFiles.parseDate(value);
+                    } catch (DateTimeException e) {
+                        throw new IllegalArgumentException("Invalid date: " + value);
+                    }
+                    break;
+                case "--mode":
+                    try {
+                        batch.mode = Mode.valueOf(value.replace('-', '_').toUpperCase(Locale.ROOT));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalArgumentException("Unknown mode: " + value);
+                    }
+                    break;
+                case "--outbox":
+                    batch.outbox = Paths.get(value);
+                    break;
+                case "--sent-log":
+                    batch.sentLogFile = Paths.get(value);
+                    break;
+                case "--repeat":
+                    try {
+                        batch.repeat = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid number of runs: " + value);
+                    }
+                    if (batch.repeat < 1) {
+                        throw new IllegalArgumentException("Number of runs must be positive: " + value);
+                    }
+                    break;
+                case "--plan-dir":
+                    batch.planDirectory = Paths.get(value);
+                    break;
+                case "--plan-days":
+                    try {
+                        batch.planDays = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid number of days: " + value);
+                    }
+                    if (batch.planDays < 1) {
+                        throw new IllegalArgumentException("Number of days must be positive: " + value);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (batch.dataPath == null) {
+            throw new IllegalArgumentException("Missing --data");
+        }
+        if (batch.planDays > 0 && batch.planDirectory == null) {
+            throw new IllegalArgumentException("--plan-days requires --plan-dir");
+        }
+        return batch;
+    }
+
+    int run(PrintStream log) throws IOException {
+        long loadStart = System.nanoTime();
+        Database database = Files.isDirectory(dataPath)
+                ? TsvDatabaseFiles.read(dataPath)
+                : SnapshotDatabase.open(dataPath);
+        log.println("Loaded " + database.getAllUsers().size() + " users and " + database.getAllSignups().size()
+                + " signups in " + millis(System.nanoTime() - loadStart) + " ms");
+        if (snapshotFile != null) {
+            long writeStart = System.nanoTime();
+            SnapshotDatabase.write(database, snapshotFile);
+            log.println("Wrote snapshot " + snapshotFile + " in " + millis(System.nanoTime() - writeStart) + " ms");
+            return 0;
+        }
+
+        LocalDate today = date != null ? date : LocalDate.now();
+        DateProvider dateProvider = new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        };
+
+        SentLog sentLog = sentLogFile != null && !dryRun ? SentLog.open(sentLogFile) : null;
+        Writer writer = openOutbox();
+        try {
+            OutboxMailSystem mailSystem = new OutboxMailSystem(writer);
+            NotifierSender sender = new NotifierSender(mailSystem, database, dateProvider,
+                    new UserMessageProvider(), new BasicEmailAddressChecker());
+            sender.setSentLog(sentLog);
+            if (plan) {
+                long start = System.nanoTime();
+                DryRunPlan dryRunPlan = sender.dryRun();
+                log.println("Planned in " + millis(System.nanoTime() - start) + " ms: " + dryRunPlan);
+                return 0;
+            }
+            if (planDays > 0) {
+                long start = System.nanoTime();
+                for (SendPlan sendPlan : sender.planMails(today, today.plusDays(planDays - 1))) {
+                    SendPlanFiles.write(sendPlan, planDirectory);
+                    log.println("Planned " + sendPlan.getMails().size() + " mails for " + sendPlan.getDay()
+                            + " in " + SendPlanFiles.fileOf(planDirectory, sendPlan.getDay()));
+                }
+                log.println("Planned " + planDays + " days in " + millis(System.nanoTime() - start) + " ms");
+                return 0;
+            }
+            SendPlan savedPlan = planDirectory != null ? SendPlanFiles.read(planDirectory, today) : null;
+            if (savedPlan != null) {
+                log.println("Sending " + savedPlan.getMails().size() + " mails planned in "
+                        + SendPlanFiles.fileOf(planDirectory, today));
+            }
+
+            int failed = 0;
+            for (int i = 1; i <= repeat; i++) {
+                long start = System.nanoTime();
+                List<MailSendResult> results = savedPlan != null
+                        ? sender.sendPlannedMails(savedPlan)
+                        : send(sender);
+                long nanos = System.nanoTime() - start;
+                runNanos.add(nanos);
+
+                failed = 0;
+                for (MailSendResult result : results) {
+                    if (!result.isSuccess()) {
+                        failed++;
+                        log.println("Failed to send to " + result.getEmailAddress() + ": " + result.getFailure());
+                    }
+                }
+                String source = savedPlan != null ? "plan" : mode.name().toLowerCase(Locale.ROOT);
+                log.println("Run " + i + " (" + source + ", " + today + "): "
+                        + (results.size() - failed) + " sent, " + failed + " failed in " + millis(nanos) + " ms");
+            }
+            mailSystem.flush();
+            return failed;
+        } finally {
+            if (writer != null && outbox != null) {
+                writer.close();
+            }
+            if (sentLog != null) {
+                sentLog.close();
+            }
+        }
+    }
+
+    List<Long> getRunNanos() {
+        return runNanos;
+    }
+
+    private List<MailSendResult> send(NotifierSender sender) {
+        switch (mode) {
+            case ALL:
+                return sender.prepareAndSendMails();
+            case BOUNDED:
+                return sender.prepareAndSendMailsInBoundedMemory();
+            case DATE_INDEX:
+                return sender.prepareAndSendMailsUsingDateIndex();
+            case PIPELINE:
+                return sender.prepareAndSendMailsThroughPipeline();
+            default:
+                return sender.prepareAndSendMailsFromCompactSignups();
+        }
+    }
+
+    private Writer openOutbox() throws IOException {
+        if (dryRun || plan || planDays > 0) {
+            return null;
+        }
+        if (outbox != null) {
+            return Files.newBufferedWriter(outbox, StandardCharsets.UTF_8);
+        }
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+    }
+
+    private static String millis(long nanos) {
+        return Long.toString(nanos / 1_000_000) + "." + (nanos / 100_000) % 10;
+    }
+}
@@ -0,0 +1,48 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.MailSystem;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+public class OutboxMailSystem implements MailSystem, Flushable {
+
+    private final Writer out;
+    private int mailCount;
+
+    public OutboxMailSystem(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public synchronized void sendEmail(String emailAddress, String title, String text) {
+        mailCount++;
+        if (out == null) {
+            return;
+        }
+        try {
+            out.write("To: ");
+            out.write(emailAddress);
+            out.write("\nSubject: ");
+            out.write(title);
+            out.write("\n\n");
+            out.write(text);
+            out.write("\n.\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized int getMailCount() {
+        return mailCount;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+}
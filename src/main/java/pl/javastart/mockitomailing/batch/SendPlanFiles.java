@@ -0,0 +1,123 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+import pl.javastart.mockitomailing.model.PlannedMail;
+import pl.javastart.mockitomailing.model.SendPlan;
+import pl.javastart.mockitomailing.model.Signup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SendPlanFiles {
+
+    private static final int MAGIC = 0x504C414E;
+    private static final int VERSION = 1;
+    private static final long NO_DATE = Long.MIN_VALUE;
+
+    private SendPlanFiles() {
+    }
+
+    public static Path fileOf(Path directory, LocalDate day) {
+        return directory.resolve("plan-" + day + ".bin");
+    }
+
+    public static void write(SendPlan plan, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = fileOf(directory, plan.getDay());
+        Path partial = file.resolveSibling(file.getFileName() + ".partial");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(partial)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(plan.getDay().toEpochDay());
+            out.writeInt(plan.getMails().size());
+            for (PlannedMail plannedMail : plan.getMails()) {
+                Signup signup = plannedMail.getAcceptableSignup();
+                OutgoingMail mail = plannedMail.getMail();
+                out.writeByte(plannedMail.getThreshold().ordinal());
+                writeString(out, signup.getUser());
+                writeString(out, signup.getCourse());
+                writeDate(out, signup.getAccessFrom());
+                writeDate(out, signup.getAccessTo());
+                writeString(out, mail.getEmailAddress());
+                writeString(out, mail.getTitle());
+                writeString(out, mail.getText());
+            }
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static SendPlan read(Path directory, LocalDate day) throws IOException {
+        Path file = fileOf(directory, day);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        long fileSize = Files.size(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException(file + ": not a send plan file");
+            }
+            LocalDate planDay = LocalDate.ofEpochDay(in.readLong());
+            if (!planDay.equals(day)) {
+                throw new IOException(file + ": holds the plan of " + planDay + " instead of " + day);
+            }
+            int count = in.readInt();
+            NotificationThreshold[] thresholds = NotificationThreshold.values();
+            List<PlannedMail> mails = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int thresholdOrdinal = in.readUnsignedByte();
+                if (thresholdOrdinal >= thresholds.length) {
+                    throw new IOException(file + ": unknown notification threshold " + thresholdOrdinal);
+                }
+                Signup signup = new Signup(readString(in, file, fileSize), readString(in, file, fileSize),
+                        readDate(in), readDate(in));
+                OutgoingMail mail = new OutgoingMail(readString(in, file, fileSize), readString(in, file, fileSize),
+                        readString(in, file, fileSize));
+                mails.add(new PlannedMail(mail, signup, thresholds[thresholdOrdinal]));
+            }
+            return new SendPlan(planDay, mails);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, Path file, long fileSize) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > fileSize) {
+            throw new IOException(file + ": string of " + length + " bytes does not fit in the file");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeDate(DataOutputStream out, LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    private static LocalDate readDate(DataInputStream in) throws IOException {
+        long epochDay = in.readLong();
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+}
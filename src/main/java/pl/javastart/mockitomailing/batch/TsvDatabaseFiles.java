@@ -0,0 +1,130 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TsvDatabaseFiles {
+
+    public static final String USERS_FILE = "users.tsv";
+    public static final String SIGNUPS_FILE = "signups.tsv";
+    public static final String COURSES_FILE = "courses.tsv";
+
+    private TsvDatabaseFiles() {
+    }
+
+    public static InMemoryDatabase read(Path directory) throws IOException {
+        List<User> users = new ArrayList<>();
+        for (String[] row : readRows(directory.resolve(USERS_FILE), 2)) {
+            users.add(new User(row[0], row[1]));
+        }
+        List<Signup> signups = new ArrayList<>();
+        for (String[] row : readRows(directory.resolve(SIGNUPS_FILE), 4)) {
+            signups.add(new Signup(row[0], row[1], row[2].isEmpty() ? null : parseDate(row[2]), parseDate(row[3])));
+        }
+        List<Course> courses = new ArrayList<>();
+        for (String[] row : readRows(directory.resolve(COURSES_FILE), 1)) {
+            courses.add(new Course(row[0]));
+        }
+        return new InMemoryDatabase(users, signups, courses);
+    }
+
+    public static void write(Database database, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve(USERS_FILE), StandardCharsets.UTF_8)) {
+            for (User user : database.getAllUsers()) {
+                writeRow(out, user.getName(), user.getEmail());
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve(SIGNUPS_FILE), StandardCharsets.UTF_8)) {
+            for (Signup signup : database.getAllSignups()) {
+                writeRow(out, signup.getUser(), signup.getCourse(),
+                        signup.getAccessFrom() == null ? "" : signup.getAccessFrom().toString(),
+                        signup.getAccessTo().toString());
+            }
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(directory.resolve(COURSES_FILE), StandardCharsets.UTF_8)) {
+            for (Course course : database.getAllCourses()) {
+                writeRow(out, course.getTitle());
+            }
+        }
+    }
+
+    private static List<String[]> readRows(Path file, int columns) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] row = new String[columns];
+                int start = 0;
+                for (int column = 0; column < columns - 1; column++) {
+                    int tab = line.indexOf('\t', start);
+                    if (tab < 0) {
+                        throw new IOException(file + ":" + lineNumber + ": expected " + columns
+                                + " tab-separated columns but found " + (column + 1));
+                    }
+                    row[column] = line.substring(start, tab);
+                    start = tab + 1;
+                }
+                if (line.indexOf('\t', start) >= 0) {
+                    throw new IOException(file + ":" + lineNumber + ": expected " + columns
+                            + " tab-separated columns but found more");
+                }
+                row[columns - 1] = line.substring(start);
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    static LocalDate parseDate(String value) {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            throw new DateTimeException("Expected a yyyy-mm-dd date but found " + value);
+        }
+        return LocalDate.of(digits(value, 0, 4), digits(value, 5, 7), digits(value, 8, 10));
+    }
+
+    private static int digits(String value, int from, int to) {
+        int number = 0;
+        for (int i = from; i < to; i++) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new DateTimeException("Expected a yyyy-mm-dd date but found " + value);
+            }
+            number = number * 10 + digit;
+        }
+        return number;
+    }
+
+    private static void writeRow(BufferedWriter out, String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            if (value.indexOf('\t') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Value cannot be stored in a TSV column: " + value);
+            }
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(value);
+        }
+        out.newLine();
+    }
+}
@@ -0,0 +1,187 @@
+package pl.javastart.mockitomailing.database;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.CompactSignupVisitor;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class ColumnarDatabase implements Database {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final List<User> users = new ArrayList<>();
+    private final Map<String, List<Integer>> userPositionsByName = new HashMap<>();
+    private final List<Course> courses = new ArrayList<>();
+    private final NameDictionary userNames = new NameDictionary();
+    private final NameDictionary courseNames = new NameDictionary();
+
+    private IntBuffer userIds = allocate(INITIAL_CAPACITY);
+    private IntBuffer courseIds = allocate(INITIAL_CAPACITY);
+    private IntBuffer accessFromEpochDays = allocate(INITIAL_CAPACITY);
+    private IntBuffer accessToEpochDays = allocate(INITIAL_CAPACITY);
+    private int signupCount;
+
+    public ColumnarDatabase(Collection<User> users, Collection<Signup> signups, Collection<Course> courses) {
+        users.forEach(this::addUser);
+        this.courses.addAll(courses);
+        signups.forEach(this::addSignup);
+    }
+
+    public void addUser(User user) {
+        userPositionsByName.computeIfAbsent(user.getName(), name -> new ArrayList<>()).add(users.size());
+        users.add(user);
+    }
+
+    public void addCourse(Course course) {
+        courses.add(course);
+    }
+
+    public void addSignup(Signup signup) {
+        addSignup(userNames.idOf(signup.getUser()), courseNames.idOf(signup.getCourse()),
+                CompactSignup.accessFromEpochDayOf(signup), CompactSignup.accessToEpochDayOf(signup));
+    }
+
+    private void addSignup(int userId, int courseId, int accessFromEpochDay, int accessToEpochDay) {
+        if (signupCount == userIds.capacity()) {
+            int capacity = signupCount * 2;
+            userIds = grow(userIds, capacity);
+            courseIds = grow(courseIds, capacity);
+            accessFromEpochDays = grow(accessFromEpochDays, capacity);
+            accessToEpochDays = grow(accessToEpochDays, capacity);
+        }
+        userIds.put(signupCount, userId);
+        courseIds.put(signupCount, courseId);
+        accessFromEpochDays.put(signupCount, accessFromEpochDay);
+        accessToEpochDays.put(signupCount, accessToEpochDay);
+        signupCount++;
+    }
+
+    public int getSignupCount() {
+        return signupCount;
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    @Override
+    public List<Signup> getAllSignups() {
+        return streamAllSignups().collect(Collectors.toList());
+    }
+
+    @Override
+    public List<Course> getAllCourses() {
+        return Collections.unmodifiableList(courses);
+    }
+
+    @Override
+    public List<User> getUsersByNames(Collection<String> userNames) {
+        List<Integer> positions = new ArrayList<>();
+        for (String userName : userNames) {
+            positions.addAll(userPositionsByName.getOrDefault(userName, Collections.emptyList()));
+        }
+        Collections.sort(positions);
+
+        List<User> result = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            result.add(users.get(position));
+        }
+        return result;
+    }
+
+    @Override
+    public Stream<Signup> streamAllSignups() {
+        return IntStream.range(0, signupCount).mapToObj(this::signupAt);
+    }
+
+    @Override
+    public Stream<CompactSignup> streamCompactSignups(NameDictionary userNames, NameDictionary courseNames) {
+        int[] userIdMapping = mapIds(this.userNames, userNames);
+        int[] courseIdMapping = mapIds(this.courseNames, courseNames);
+        return IntStream.range(0, signupCount)
+                .mapToObj(row -> new CompactSignup(userIdMapping[userIds.get(row)], courseIdMapping[courseIds.get(row)],
+                        accessFromEpochDays.get(row), accessToEpochDays.get(row)));
+    }
+
+    @Override
+    public void forEachCompactSignup(NameDictionary userNames, NameDictionary courseNames, CompactSignupVisitor visitor) {
+        int[] userIdMapping = mapIds(this.userNames, userNames);
+        int[] courseIdMapping = mapIds(this.courseNames, courseNames);
+        for (int row = 0; row < signupCount; row++) {
+            visitor.visit(userIdMapping[userIds.get(row)], courseIdMapping[courseIds.get(row)],
+                    accessFromEpochDays.get(row), accessToEpochDays.get(row));
+        }
+    }
+
+    @Override
+    public List<Signup> getSignupsWithAccessToBetween(LocalDate from, LocalDate to) {
+        int fromEpochDay = (int) from.toEpochDay();
+        int toEpochDay = (int) to.toEpochDay();
+        List<Signup> result = new ArrayList<>();
+        for (int row = 0; row < signupCount; row++) {
+            int accessTo = accessToEpochDays.get(row);
+            if (accessTo >= fromEpochDay && accessTo <= toEpochDay) {
+                result.add(signupAt(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Signup> getSignupsOfUsers(Collection<String> names) {
+        BitSet wantedUserIds = new BitSet();
+        for (String name : names) {
+            int userId = userNames.find(name);
+            if (userId != NameDictionary.NOT_FOUND) {
+                wantedUserIds.set(userId);
+            }
+        }
+        List<Signup> result = new ArrayList<>();
+        for (int row = 0; row < signupCount; row++) {
+            if (wantedUserIds.get(userIds.get(row))) {
+                result.add(signupAt(row));
+            }
+        }
+        return result;
+    }
+
+    private Signup signupAt(int row) {
+        return new Signup(userNames.nameOf(userIds.get(row)), courseNames.nameOf(courseIds.get(row)),
+                CompactSignup.accessFromOf(accessFromEpochDays.get(row)),
+                LocalDate.ofEpochDay(accessToEpochDays.get(row)));
+    }
+
+    private static int[] mapIds(NameDictionary from, NameDictionary to) {
+        int[] mapping = new int[from.size()];
+        for (int id = 0; id < mapping.length; id++) {
+            mapping[id] = to.idOf(from.nameOf(id));
+        }
+        return mapping;
+    }
+
+    private static IntBuffer allocate(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    private static IntBuffer grow(IntBuffer column, int capacity) {
+        IntBuffer grown = allocate(capacity);
+        IntBuffer source = column.duplicate();
+        source.clear();
+        grown.put(source);
+        grown.clear();
+        return grown;
+    }
+}
@@ -0,0 +1,99 @@
+package pl.javastart.mockitomailing.database;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+
+public class InMemoryDatabase implements Database {
+
+    private final List<User> users = new ArrayList<>();
+    private final Map<String, List<Integer>> userPositionsByName = new HashMap<>();
+    private final List<Signup> signups = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+    private final NavigableMap<LocalDate, List<Signup>> signupsByAccessTo = new TreeMap<>();
+    private final Map<String, List<Signup>> signupsByUser = new HashMap<>();
+
+    public InMemoryDatabase(Collection<User> users, Collection<Signup> signups, Collection<Course> courses) {
+        for (User user : users) {
+            addUser(user);
+        }
+        this.courses.addAll(courses);
+        for (Signup signup : signups) {
+            addSignup(signup);
+        }
+    }
+
+    public void addUser(User user) {
+        listFor(userPositionsByName, user.getName()).add(users.size());
+        users.add(user);
+    }
+
+    public void addSignup(Signup signup) {
+        signups.add(signup);
+        listFor(signupsByAccessTo, signup.getAccessTo()).add(signup);
+        listFor(signupsByUser, signup.getUser()).add(signup);
+    }
+
+    public void addCourse(Course course) {
+        courses.add(course);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return Collections.unmodifiableList(users);
+    }
+
+    @Override
+    public List<Signup> getAllSignups() {
+        return Collections.unmodifiableList(signups);
+    }
+
+    @Override
+    public List<Course> getAllCourses() {
+        return Collections.unmodifiableList(courses);
+    }
+
+    @Override
+    public List<User> getUsersByNames(Collection<String> userNames) {
+        List<Integer> positions = new ArrayList<>();
+        for (String userName : userNames) {
+            positions.addAll(userPositionsByName.getOrDefault(userName, Collections.emptyList()));
+        }
+        Collections.sort(positions);
+
+        List<User> result = new ArrayList<>(positions.size());
+        for (int position : positions) {
+            result.add(users.get(position));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Signup> getSignupsWithAccessToBetween(LocalDate from, LocalDate to) {
+        List<Signup> result = new ArrayList<>();
+        signupsByAccessTo.subMap(from, true, to, true).values().forEach(result::addAll);
+        return result;
+    }
+
+    @Override
+    public List<Signup> getSignupsOfUsers(Collection<String> userNames) {
+        List<Signup> result = new ArrayList<>();
+        for (String userName : userNames) {
+            result.addAll(signupsByUser.getOrDefault(userName, Collections.emptyList()));
+        }
+        return result;
+    }
+
+    private static <K, V> List<V> listFor(Map<K, List<V>> map, K key) {
+        List<V> values = map.get(key);
+        if (values == null) {
+            values = new ArrayList<>();
+            map.put(key, values);
+        }
+        return values;
+    }
+}
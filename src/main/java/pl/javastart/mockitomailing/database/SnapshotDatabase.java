@@ -0,0 +1,448 @@
+package pl.javastart.mockitomailing.database;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.CompactSignupVisitor;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class SnapshotDatabase implements Database {
+
+    static final int MAGIC = 0x4E534E50;
+    static final int VERSION = 1;
+
+    private static final int USER_COUNT = 8;
+    private static final int COURSE_COUNT = 12;
+    private static final int SIGNUP_COUNT = 16;
+    private static final int USER_NAME_COUNT = 20;
+    private static final int COURSE_NAME_COUNT = 24;
+    private static final int USERS_OFFSET = 28;
+    private static final int EMAIL_INDEX_OFFSET = 32;
+    private static final int COURSES_OFFSET = 36;
+    private static final int SIGNUPS_OFFSET = 40;
+    private static final int USER_NAME_INDEX_OFFSET = 44;
+    private static final int COURSE_NAME_INDEX_OFFSET = 48;
+    private static final int HEADER_SIZE = 52;
+    private static final int SIGNUP_ROW_SIZE = 16;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final int userCount;
+    private final int courseCount;
+    private final int signupCount;
+    private final int usersOffset;
+    private final int emailIndexOffset;
+    private final int coursesOffset;
+    private final int signupsOffset;
+    private final String[] userNames;
+    private final String[] courseNames;
+    private final int userNameIndexOffset;
+    private final int courseNameIndexOffset;
+
+    private SnapshotDatabase(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a database snapshot");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException(file + " has unsupported snapshot version " + buffer.getInt(4));
+        }
+        userCount = buffer.getInt(USER_COUNT);
+        courseCount = buffer.getInt(COURSE_COUNT);
+        signupCount = buffer.getInt(SIGNUP_COUNT);
+        int userNameCount = buffer.getInt(USER_NAME_COUNT);
+        int courseNameCount = buffer.getInt(COURSE_NAME_COUNT);
+        usersOffset = section(USERS_OFFSET, userCount, Integer.BYTES);
+        emailIndexOffset = section(EMAIL_INDEX_OFFSET, userCount, Integer.BYTES);
+        coursesOffset = section(COURSES_OFFSET, courseCount, Integer.BYTES);
+        signupsOffset = section(SIGNUPS_OFFSET, signupCount, SIGNUP_ROW_SIZE);
+        userNameIndexOffset = section(USER_NAME_INDEX_OFFSET, userNameCount, Integer.BYTES);
+        courseNameIndexOffset = section(COURSE_NAME_INDEX_OFFSET, courseNameCount, Integer.BYTES);
+        userNames = new String[userNameCount];
+        courseNames = new String[courseNameCount];
+    }
+
+    public static SnapshotDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map");
+            }
+            return new SnapshotDatabase(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void write(Database database, Path file) throws IOException {
+        List<User> users = database.getAllUsers();
+        List<Course> courses = database.getAllCourses();
+        NameDictionary userNames = new NameDictionary();
+        NameDictionary courseNames = new NameDictionary();
+        int[] header = new int[HEADER_SIZE / Integer.BYTES];
+        header[0] = MAGIC;
+        header[1] = VERSION;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SnapshotOutput out = new SnapshotOutput(channel);
+            out.skip(HEADER_SIZE);
+
+            header[USER_COUNT / Integer.BYTES] = users.size();
+            header[USERS_OFFSET / Integer.BYTES] = out.position();
+            for (User user : users) {
+                out.putInt(userNames.idOf(user.getName()));
+            }
+            int[] emailPositions = new int[users.size()];
+            for (int i = 0; i < emailPositions.length; i++) {
+                emailPositions[i] = out.putString(users.get(i).getEmail());
+            }
+            header[EMAIL_INDEX_OFFSET / Integer.BYTES] = out.putIndex(emailPositions);
+
+            header[COURSE_COUNT / Integer.BYTES] = courses.size();
+            header[COURSES_OFFSET / Integer.BYTES] = out.position();
+            for (Course course : courses) {
+                out.putInt(courseNames.idOf(course.getTitle()));
+            }
+
+            header[SIGNUPS_OFFSET / Integer.BYTES] = out.position();
+            int[] signupCount = new int[1];
+            try {
+                database.forEachCompactSignup(userNames, courseNames, (userId, courseId, accessFrom, accessTo) -> {
+                    try {
+                        out.putInt(userId);
+                        out.putInt(courseId);
+                        out.putInt(accessFrom);
+                        out.putInt(accessTo);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    signupCount[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            header[SIGNUP_COUNT / Integer.BYTES] = signupCount[0];
+
+            header[USER_NAME_COUNT / Integer.BYTES] = userNames.size();
+            header[USER_NAME_INDEX_OFFSET / Integer.BYTES] = out.putDictionary(userNames);
+            header[COURSE_NAME_COUNT / Integer.BYTES] = courseNames.size();
+            header[COURSE_NAME_INDEX_OFFSET / Integer.BYTES] = out.putDictionary(courseNames);
+            out.position();
+            out.flush();
+
+            ByteBuffer headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+            headerBuffer.asIntBuffer().put(header);
+            while (headerBuffer.hasRemaining()) {
+                channel.write(headerBuffer, headerBuffer.position());
+            }
+        }
+    }
+
+    public int getSignupCount() {
+        return signupCount;
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return new SnapshotList<User>(userCount) {
+            @Override
+            public User get(int index) {
+                return userAt(checkIndex(index));
+            }
+        };
+    }
+
+    @Override
+    public List<Signup> getAllSignups() {
+        return new SnapshotList<Signup>(signupCount) {
+            @Override
+            public Signup get(int index) {
+                return signupAt(checkIndex(index));
+            }
+        };
+    }
+
+    @Override
+    public List<Course> getAllCourses() {
+        return new SnapshotList<Course>(courseCount) {
+            @Override
+            public Course get(int index) {
+                return new Course(courseName(buffer.getInt(coursesOffset + checkIndex(index) * Integer.BYTES)));
+            }
+        };
+    }
+
+    @Override
+    public Stream<User> streamAllUsers() {
+        return IntStream.range(0, userCount).mapToObj(this::userAt);
+    }
+
+    @Override
+    public Stream<Signup> streamAllSignups() {
+        return IntStream.range(0, signupCount).mapToObj(this::signupAt);
+    }
+
+    @Override
+    public Stream<CompactSignup> streamCompactSignups(NameDictionary userNames, NameDictionary courseNames) {
+        int[] userIdMapping = mapUserIds(userNames);
+        int[] courseIdMapping = mapCourseIds(courseNames);
+        return IntStream.range(0, signupCount).mapToObj(row -> {
+            int offset = signupsOffset + row * SIGNUP_ROW_SIZE;
+            return new CompactSignup(mapId(userIdMapping, buffer.getInt(offset), "user name"),
+                    mapId(courseIdMapping, buffer.getInt(offset + 4), "course name"),
+                    buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+        });
+    }
+
+    @Override
+    public void forEachCompactSignup(NameDictionary userNames, NameDictionary courseNames, CompactSignupVisitor visitor) {
+        int[] userIdMapping = mapUserIds(userNames);
+        int[] courseIdMapping = mapCourseIds(courseNames);
+        int end = signupsOffset + signupCount * SIGNUP_ROW_SIZE;
+        for (int offset = signupsOffset; offset < end; offset += SIGNUP_ROW_SIZE) {
+            visitor.visit(mapId(userIdMapping, buffer.getInt(offset), "user name"),
+                    mapId(courseIdMapping, buffer.getInt(offset + 4), "course name"),
+                    buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+        }
+    }
+
+    @Override
+    public List<User> getUsersByNames(Collection<String> names) {
+        Set<String> wantedNames = new HashSet<>(names);
+        List<User> result = new ArrayList<>();
+        for (int position = 0; position < userCount; position++) {
+            if (wantedNames.contains(userName(buffer.getInt(usersOffset + position * Integer.BYTES)))) {
+                result.add(userAt(position));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Signup> getSignupsWithAccessToBetween(LocalDate from, LocalDate to) {
+        int fromEpochDay = (int) from.toEpochDay();
+        int toEpochDay = (int) to.toEpochDay();
+        List<Signup> result = new ArrayList<>();
+        for (int row = 0; row < signupCount; row++) {
+            int accessTo = buffer.getInt(signupsOffset + row * SIGNUP_ROW_SIZE + 12);
+            if (accessTo >= fromEpochDay && accessTo <= toEpochDay) {
+                result.add(signupAt(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Signup> getSignupsOfUsers(Collection<String> names) {
+        Set<String> wantedNames = new HashSet<>(names);
+        BitSet wantedUserIds = new BitSet();
+        for (int userId = 0; userId < userNames.length; userId++) {
+            if (wantedNames.contains(userName(userId))) {
+                wantedUserIds.set(userId);
+            }
+        }
+        List<Signup> result = new ArrayList<>();
+        for (int row = 0; row < signupCount; row++) {
+            if (wantedUserIds.get(buffer.getInt(signupsOffset + row * SIGNUP_ROW_SIZE))) {
+                result.add(signupAt(row));
+            }
+        }
+        return result;
+    }
+
+    private User userAt(int position) {
+        return new User(userName(buffer.getInt(usersOffset + position * Integer.BYTES)),
+                stringAt(emailIndexOffset, position));
+    }
+
+    private Signup signupAt(int row) {
+        int offset = signupsOffset + row * SIGNUP_ROW_SIZE;
+        return new Signup(userName(buffer.getInt(offset)), courseName(buffer.getInt(offset + 4)),
+                CompactSignup.accessFromOf(buffer.getInt(offset + 8)),
+                LocalDate.ofEpochDay(buffer.getInt(offset + 12)));
+    }
+
+    private String userName(int userId) {
+        checkId(userId, userNames.length, "user name");
+        String name = userNames[userId];
+        if (name == null) {
+            name = stringAt(userNameIndexOffset, userId);
+            userNames[userId] = name;
+        }
+        return name;
+    }
+
+    private String courseName(int courseId) {
+        checkId(courseId, courseNames.length, "course name");
+        String name = courseNames[courseId];
+        if (name == null) {
+            name = stringAt(courseNameIndexOffset, courseId);
+            courseNames[courseId] = name;
+        }
+        return name;
+    }
+
+    private String stringAt(int indexOffset, int id) {
+        int position = buffer.getInt(indexOffset + id * Integer.BYTES);
+        if (position < HEADER_SIZE || position > buffer.capacity() - Integer.BYTES) {
+            throw corrupt("string " + id + " starts at " + position + " outside of the file");
+        }
+        int length = buffer.getInt(position);
+        if (length < 0 || length > buffer.capacity() - position - Integer.BYTES) {
+            throw corrupt("string " + id + " at " + position + " has length " + length
+                    + " past the end of the file");
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(position + Integer.BYTES);
+        source.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int[] mapUserIds(NameDictionary to) {
+        int[] mapping = new int[userNames.length];
+        for (int id = 0; id < mapping.length; id++) {
+            mapping[id] = to.idOf(userName(id));
+        }
+        return mapping;
+    }
+
+    private int[] mapCourseIds(NameDictionary to) {
+        int[] mapping = new int[courseNames.length];
+        for (int id = 0; id < mapping.length; id++) {
+            mapping[id] = to.idOf(courseName(id));
+        }
+        return mapping;
+    }
+
+    private int mapId(int[] mapping, int id, String dictionary) {
+        checkId(id, mapping.length, dictionary);
+        return mapping[id];
+    }
+
+    private void checkId(int id, int count, String dictionary) {
+        if (id < 0 || id >= count) {
+            throw corrupt(dictionary + " id " + id + " is outside of the dictionary of " + count);
+        }
+    }
+
+    private UncheckedIOException corrupt(String detail) {
+        return new UncheckedIOException(new IOException(file + " is a truncated or corrupt snapshot: " + detail));
+    }
+
+    private int section(int headerField, int count, int entrySize) throws IOException {
+        int offset = buffer.getInt(headerField);
+        if (count < 0 || offset < HEADER_SIZE || (long) offset + (long) count * entrySize > buffer.capacity()) {
+            throw new IOException(file + " is a truncated or corrupt snapshot");
+        }
+        return offset;
+    }
+
+    private abstract static class SnapshotList<E> extends AbstractList<E> implements RandomAccess {
+
+        private final int size;
+
+        private SnapshotList(int size) {
+            this.size = size;
+        }
+
+        int checkIndex(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return index;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    private static class SnapshotOutput {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+        private long position;
+
+        private SnapshotOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        int position() throws IOException {
+            if (position > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot exceeds " + Integer.MAX_VALUE + " bytes");
+            }
+            return (int) position;
+        }
+
+        void skip(int bytes) throws IOException {
+            flush();
+            position += bytes;
+            channel.position(position);
+        }
+
+        void putInt(int value) throws IOException {
+            if (buffer.remaining() < Integer.BYTES) {
+                flush();
+            }
+            buffer.putInt(value);
+            position += Integer.BYTES;
+        }
+
+        int putString(String value) throws IOException {
+            int start = position();
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putInt(bytes.length);
+            int written = 0;
+            while (written < bytes.length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int chunk = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, chunk);
+                written += chunk;
+            }
+            position += bytes.length;
+            return start;
+        }
+
+        int putIndex(int[] positions) throws IOException {
+            int start = position();
+            for (int position : positions) {
+                putInt(position);
+            }
+            return start;
+        }
+
+        int putDictionary(NameDictionary names) throws IOException {
+            int[] positions = new int[names.size()];
+            for (int id = 0; id < positions.length; id++) {
+                positions[id] = putString(names.nameOf(id));
+            }
+            return putIndex(positions);
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.BatchSendException;
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+public class BatchingMailDispatcher implements MailDispatcher {
+
+    private MailSystem mailSystem;
+    private int batchSize;
+    private long maxBatchDelayNanos;
+    private LongSupplier nanoClock;
+
+    public BatchingMailDispatcher(MailSystem mailSystem, int batchSize, Duration maxBatchDelay) {
+        this(mailSystem, batchSize, maxBatchDelay, System::nanoTime);
+    }
+
+    BatchingMailDispatcher(MailSystem mailSystem, int batchSize, Duration maxBatchDelay, LongSupplier nanoClock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.mailSystem = mailSystem;
+        this.batchSize = batchSize;
+        this.maxBatchDelayNanos = maxBatchDelay.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void dispatch(Stream<OutgoingMail> mails, Consumer<MailSendResult> resultListener) {
+        List<OutgoingMail> batch = new ArrayList<>(batchSize);
+        long[] batchStartedAt = new long[1];
+
+        mails.forEach(mail -> {
+            if (batch.isEmpty()) {
+                batchStartedAt[0] = nanoClock.getAsLong();
+            }
+            batch.add(mail);
+            if (batch.size() >= batchSize || nanoClock.getAsLong() - batchStartedAt[0] >= maxBatchDelayNanos) {
+                flush(batch, resultListener);
+            }
+        });
+        flush(batch, resultListener);
+    }
+
+    private void flush(List<OutgoingMail> batch, Consumer<MailSendResult> resultListener) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            mailSystem.sendBatch(batch);
+            batch.forEach(mail -> resultListener.accept(MailSendResult.success(mail)));
+        } catch (BatchSendException e) {
+            Set<OutgoingMail> delivered = Collections.newSetFromMap(new IdentityHashMap<>());
+            delivered.addAll(e.getDelivered());
+            batch.forEach(mail -> resultListener.accept(delivered.contains(mail)
+                    ? MailSendResult.success(mail)
+                    : MailSendResult.failure(mail, e.getCause())));
+        } catch (RuntimeException e) {
+            batch.forEach(mail -> resultListener.accept(sendAlone(mail)));
+        }
+        batch.clear();
+    }
+
+    private MailSendResult sendAlone(OutgoingMail mail) {
+        try {
+            MailDelivery.deliver(mailSystem, mail);
+            return MailSendResult.success(mail);
+        } catch (RuntimeException e) {
+            return MailSendResult.failure(mail, e);
+        }
+    }
+}
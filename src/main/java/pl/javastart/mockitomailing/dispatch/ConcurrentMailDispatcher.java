@@ -0,0 +1,93 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class ConcurrentMailDispatcher implements MailDispatcher {
+
+    private MailSystem mailSystem;
+    private ExecutorService executor;
+    private int maxInFlight;
+
+    public ConcurrentMailDispatcher(MailSystem mailSystem, int maxInFlight) {
+        this(mailSystem, null, maxInFlight);
+    }
+
+    public ConcurrentMailDispatcher(MailSystem mailSystem, ExecutorService executor, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be positive: " + maxInFlight);
+        }
+        this.mailSystem = mailSystem;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+    }
+
+    @Override
+    public void dispatch(Stream<OutgoingMail> mails, Consumer<MailSendResult> resultListener) {
+        ExecutorService runExecutor = executor != null ? executor : newDefaultExecutor();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+        try {
+            mails.forEach(mail -> {
+                inFlight.acquireUninterruptibly();
+                try {
+                    runExecutor.execute(() -> {
+                        try {
+                            resultListener.accept(send(mail));
+                        } catch (RuntimeException | Error e) {
+                            firstFailure.compareAndSet(null, e);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    resultListener.accept(MailSendResult.failure(mail, e));
+                }
+            });
+        } finally {
+            inFlight.acquireUninterruptibly(maxInFlight);
+            inFlight.release(maxInFlight);
+            if (runExecutor != executor) {
+                runExecutor.shutdown();
+            }
+        }
+
+        Throwable failure = firstFailure.get();
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw (RuntimeException) failure;
+        }
+    }
+
+    private MailSendResult send(OutgoingMail mail) {
+        try {
+            MailDelivery.deliver(mailSystem, mail);
+            return MailSendResult.success(mail);
+        } catch (RuntimeException e) {
+            return MailSendResult.failure(mail, e);
+        }
+    }
+
+    static ExecutorService newDefaultExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "mail-dispatcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
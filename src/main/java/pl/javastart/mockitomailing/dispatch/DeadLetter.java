@@ -0,0 +1,37 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+public class DeadLetter {
+
+    private OutgoingMail mail;
+    private Throwable lastFailure;
+    private int attempts;
+
+    public DeadLetter(OutgoingMail mail, Throwable lastFailure, int attempts) {
+        this.mail = mail;
+        this.lastFailure = lastFailure;
+        this.attempts = attempts;
+    }
+
+    public OutgoingMail getMail() {
+        return mail;
+    }
+
+    public Throwable getLastFailure() {
+        return lastFailure;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetter{" +
+                "emailAddress='" + mail.getEmailAddress() + '\'' +
+                ", lastFailure=" + lastFailure +
+                ", attempts=" + attempts +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+public final class MailDelivery {
+
+    private MailDelivery() {
+    }
+
+    public static void deliver(MailSystem mailSystem, OutgoingMail mail) {
+        if (mail.isEncoded()) {
+            mailSystem.sendEncodedEmail(mail.getEmailAddress(), mail.getTitle(), mail.getEncodedText());
+        } else {
+            mailSystem.sendEmail(mail.getEmailAddress(), mail.getTitle(), mail.getText());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface MailDispatcher {
+
+    void dispatch(Stream<OutgoingMail> mails, Consumer<MailSendResult> resultListener);
+
+    default List<MailSendResult> dispatch(Stream<OutgoingMail> mails) {
+        List<MailSendResult> results = Collections.synchronizedList(new ArrayList<>());
+        dispatch(mails, results::add);
+        return new ArrayList<>(results);
+    }
+
+}
@@ -0,0 +1,46 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+public class MailSendResult {
+
+    private OutgoingMail mail;
+    private Throwable failure;
+
+    private MailSendResult(OutgoingMail mail, Throwable failure) {
+        this.mail = mail;
+        this.failure = failure;
+    }
+
+    public static MailSendResult success(OutgoingMail mail) {
+        return new MailSendResult(mail, null);
+    }
+
+    public static MailSendResult failure(OutgoingMail mail, Throwable failure) {
+        return new MailSendResult(mail, failure);
+    }
+
+    public OutgoingMail getMail() {
+        return mail;
+    }
+
+    public String getEmailAddress() {
+        return mail.getEmailAddress();
+    }
+
+    public Throwable getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    @Override
+    public String toString() {
+        return "MailSendResult{" +
+                "emailAddress='" + mail.getEmailAddress() + '\'' +
+                ", failure=" + failure +
+                '}';
+    }
+}
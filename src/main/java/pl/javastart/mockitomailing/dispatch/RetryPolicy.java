@@ -0,0 +1,33 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import java.time.Duration;
+import java.util.Random;
+
+public class RetryPolicy {
+
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO);
+
+    private int maxAttempts;
+    private long initialBackoffNanos;
+    private long maxBackoffNanos;
+
+    public RetryPolicy(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long backoffNanos(int failedAttempts, Random random) {
+        double exponential = initialBackoffNanos * Math.pow(2, failedAttempts - 1);
+        long ceiling = (long) Math.min(maxBackoffNanos, exponential);
+        long floor = ceiling / 2;
+        return floor + (long) (random.nextDouble() * (ceiling - floor));
+    }
+}
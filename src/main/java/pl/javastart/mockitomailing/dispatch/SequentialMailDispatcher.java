@@ -0,0 +1,24 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class SequentialMailDispatcher implements MailDispatcher {
+
+    private MailSystem mailSystem;
+
+    public SequentialMailDispatcher(MailSystem mailSystem) {
+        this.mailSystem = mailSystem;
+    }
+
+    @Override
+    public void dispatch(Stream<OutgoingMail> mails, Consumer<MailSendResult> resultListener) {
+        mails.forEach(mail -> {
+            MailDelivery.deliver(mailSystem, mail);
+            resultListener.accept(MailSendResult.success(mail));
+        });
+    }
+}
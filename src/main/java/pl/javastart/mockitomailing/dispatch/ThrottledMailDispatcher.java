@@ -0,0 +1,175 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class ThrottledMailDispatcher implements MailDispatcher {
+
+    private static final OutgoingMail END_OF_STREAM = new OutgoingMail(null, null, (String) null);
+
+    private MailSystem mailSystem;
+    private TokenBucket tokenBucket;
+    private RetryPolicy retryPolicy;
+    private int queueCapacity;
+    private int workers;
+    private final List<DeadLetter> deadLetters = Collections.synchronizedList(new ArrayList<>());
+
+    public ThrottledMailDispatcher(MailSystem mailSystem, TokenBucket tokenBucket, RetryPolicy retryPolicy,
+                                   int queueCapacity, int workers) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive: " + queueCapacity);
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive: " + workers);
+        }
+        this.mailSystem = mailSystem;
+        this.tokenBucket = tokenBucket;
+        this.retryPolicy = retryPolicy;
+        this.queueCapacity = queueCapacity;
+        this.workers = workers;
+    }
+
+    @Override
+    public void dispatch(Stream<OutgoingMail> mails, Consumer<MailSendResult> resultListener) {
+        BlockingQueue<OutgoingMail> queue = new ArrayBlockingQueue<>(queueCapacity);
+        CountDownLatch finished = new CountDownLatch(workers);
+        AtomicReference<RuntimeException> listenerFailure = new AtomicReference<>();
+        ExecutorService executor = ConcurrentMailDispatcher.newDefaultExecutor();
+
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    try {
+                        drain(queue, resultListener, listenerFailure);
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+            try {
+                mails.forEach(mail -> putUninterruptibly(queue, mail));
+            } finally {
+                for (int i = 0; i < workers; i++) {
+                    putUninterruptibly(queue, END_OF_STREAM);
+                }
+                awaitUninterruptibly(finished);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        if (listenerFailure.get() != null) {
+            throw listenerFailure.get();
+        }
+    }
+
+    public List<DeadLetter> getDeadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters);
+        }
+    }
+
+    public List<DeadLetter> drainDeadLetters() {
+        synchronized (deadLetters) {
+            List<DeadLetter> drained = new ArrayList<>(deadLetters);
+            deadLetters.clear();
+            return drained;
+        }
+    }
+
+    private void drain(BlockingQueue<OutgoingMail> queue, Consumer<MailSendResult> resultListener,
+                       AtomicReference<RuntimeException> listenerFailure) {
+        OutgoingMail mail;
+        while ((mail = takeUninterruptibly(queue)) != END_OF_STREAM) {
+            MailSendResult result = send(mail);
+            try {
+                resultListener.accept(result);
+            } catch (RuntimeException e) {
+                listenerFailure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private MailSendResult send(OutgoingMail mail) {
+        int attempts = 0;
+        while (true) {
+            tokenBucket.acquire();
+            attempts++;
+            try {
+                MailDelivery.deliver(mailSystem, mail);
+                return MailSendResult.success(mail);
+            } catch (RuntimeException e) {
+                if (attempts >= retryPolicy.getMaxAttempts()) {
+                    deadLetters.add(new DeadLetter(mail, e, attempts));
+                    return MailSendResult.failure(mail, e);
+                }
+                sleepUninterruptibly(retryPolicy.backoffNanos(attempts, ThreadLocalRandom.current()));
+            }
+        }
+    }
+
+    private static void putUninterruptibly(BlockingQueue<OutgoingMail> queue, OutgoingMail mail) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(mail);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OutgoingMail takeUninterruptibly(BlockingQueue<OutgoingMail> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleepUninterruptibly(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        long remaining = nanos;
+        while (remaining > 0) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
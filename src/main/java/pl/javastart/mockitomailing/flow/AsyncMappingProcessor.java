@@ -0,0 +1,163 @@
+package pl.javastart.mockitomailing.flow;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+public class AsyncMappingProcessor<T, R> implements Flow.Processor<T, R> {
+
+    private final Function<? super T, ? extends R> mapper;
+    private final Executor executor;
+    private final int bufferSize;
+    private final int replenishBatch;
+    private final Queue<T> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Flow.Subscription upstream;
+    private volatile Flow.Subscriber<? super R> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable failure;
+    private volatile boolean cancelled;
+    private boolean terminated;
+    private int consumedSinceRequest;
+
+    public AsyncMappingProcessor(Function<? super T, ? extends R> mapper, Executor executor, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.mapper = mapper;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.replenishBatch = Math.max(1, bufferSize / 2);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        buffer.offer(item);
+        schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failure = throwable;
+        upstreamDone = true;
+        schedule();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        schedule();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            throw new IllegalStateException("AsyncMappingProcessor supports a single subscriber");
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    failure = new IllegalArgumentException("non-positive request: " + n);
+                    cancelUpstream();
+                } else {
+                    Demand.add(requested, n);
+                }
+                schedule();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                schedule();
+            }
+        });
+        downstream = subscriber;
+        schedule();
+    }
+
+    private void cancelUpstream() {
+        upstreamDone = true;
+        if (upstream != null) {
+            upstream.cancel();
+        }
+    }
+
+    private void schedule() {
+        if (pendingDrains.getAndIncrement() == 0) {
+            executor.execute(this::drainLoop);
+        }
+    }
+
+    private void drainLoop() {
+        int missed = 1;
+        do {
+            Flow.Subscriber<? super R> subscriber = downstream;
+            if (cancelled) {
+                terminated = true;
+                buffer.clear();
+            } else if (subscriber != null && !terminated) {
+                drain(subscriber);
+            }
+            missed = pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drain(Flow.Subscriber<? super R> subscriber) {
+        long emitted = 0;
+        long demand = requested.get();
+        while (emitted < demand && failure == null) {
+            T item = buffer.poll();
+            if (item == null) {
+                break;
+            }
+            replenish();
+            R mapped;
+            try {
+                mapped = mapper.apply(item);
+            } catch (RuntimeException e) {
+                failure = e;
+                cancelUpstream();
+                break;
+            }
+            if (mapped != null) {
+                subscriber.onNext(mapped);
+                emitted++;
+            }
+        }
+        Demand.produced(requested, emitted);
+
+        if (failure != null) {
+            terminated = true;
+            buffer.clear();
+            subscriber.onError(failure);
+        } else if (upstreamDone && buffer.isEmpty()) {
+            terminated = true;
+            subscriber.onComplete();
+        }
+    }
+
+    private void replenish() {
+        if (++consumedSinceRequest >= replenishBatch && !upstreamDone) {
+            upstream.request(consumedSinceRequest);
+            consumedSinceRequest = 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pl.javastart.mockitomailing.flow;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collector;
+
+public class CollectingSubscriber<T, A, R> implements Flow.Subscriber<T> {
+
+    private final Collector<? super T, A, R> collector;
+    private final long batchSize;
+    private final CompletableFuture<R> result = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private A container;
+    private long receivedInBatch;
+
+    public CollectingSubscriber(Collector<? super T, A, R> collector, long batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.collector = collector;
+        this.batchSize = batchSize;
+    }
+
+    public static <T, A, R> R collect(Flow.Publisher<T> publisher, Collector<? super T, A, R> collector, long batchSize) {
+        CollectingSubscriber<T, A, R> subscriber = new CollectingSubscriber<>(collector, batchSize);
+        publisher.subscribe(subscriber);
+        return subscriber.join();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        this.container = collector.supplier().get();
+        subscription.request(batchSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        try {
+            collector.accumulator().accept(container, item);
+        } catch (RuntimeException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+            return;
+        }
+        if (++receivedInBatch == batchSize) {
+            receivedInBatch = 0;
+            subscription.request(batchSize);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        result.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        result.complete(collector.finisher().apply(container));
+    }
+
+    public CompletableFuture<R> getResult() {
+        return result;
+    }
+
+    public R join() {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package pl.javastart.mockitomailing.flow;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+final class Demand {
+
+    private Demand() {
+    }
+
+    static void add(AtomicLong requested, long n) {
+        requested.getAndUpdate(current -> {
+            long sum = current + n;
+            return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+    }
+
+    static void produced(AtomicLong requested, long n) {
+        requested.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - n);
+    }
+}
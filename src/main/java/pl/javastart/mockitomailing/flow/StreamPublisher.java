@@ -0,0 +1,108 @@
+package pl.javastart.mockitomailing.flow;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class StreamPublisher<T> implements Flow.Publisher<T> {
+
+    private Supplier<Stream<T>> source;
+
+    public StreamPublisher(Supplier<Stream<T>> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        new StreamSubscription<>(source.get(), subscriber).start();
+    }
+
+    private static class StreamSubscription<T> implements Flow.Subscription {
+
+        private final Stream<T> stream;
+        private final Iterator<T> iterator;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private volatile Throwable invalidRequest;
+
+        private StreamSubscription(Stream<T> stream, Flow.Subscriber<? super T> subscriber) {
+            this.stream = stream;
+            this.iterator = stream.iterator();
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            pendingDrains.incrementAndGet();
+            subscriber.onSubscribe(this);
+            drainLoop();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("non-positive request: " + n);
+            } else {
+                Demand.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            terminate();
+        }
+
+        private void drain() {
+            if (pendingDrains.getAndIncrement() == 0) {
+                drainLoop();
+            }
+        }
+
+        private void drainLoop() {
+            int missed = 1;
+            do {
+                try {
+                    if (invalidRequest != null) {
+                        if (terminate()) {
+                            subscriber.onError(invalidRequest);
+                        }
+                        return;
+                    }
+                    long emitted = 0;
+                    long demand = requested.get();
+                    while (emitted < demand && !terminated.get() && iterator.hasNext()) {
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+                    Demand.produced(requested, emitted);
+                    if (!terminated.get() && !iterator.hasNext()) {
+                        if (terminate()) {
+                            subscriber.onComplete();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    if (terminate()) {
+                        subscriber.onError(e);
+                    }
+                }
+                if (terminated.get()) {
+                    return;
+                }
+                missed = pendingDrains.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private boolean terminate() {
+            if (terminated.compareAndSet(false, true)) {
+                stream.close();
+                return true;
+            }
+            return false;
+        }
+    }
+}
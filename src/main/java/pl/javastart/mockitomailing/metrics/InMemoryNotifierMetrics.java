@@ -0,0 +1,143 @@
+package pl.javastart.mockitomailing.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+public class InMemoryNotifierMetrics implements NotifierMetrics, InMemoryNotifierMetricsMBean {
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder signupsScanned = new LongAdder();
+    private final LongAdder acceptableSignupsFound = new LongAdder();
+    private final LongAdder recipientsRejectedByEmailChecker = new LongAdder();
+    private final LongAdder mailsSent = new LongAdder();
+    private final LongAdder mailsFailed = new LongAdder();
+    private final LongAdder sendCallsFailed = new LongAdder();
+    private final LatencyHistogram renderLatency = new LatencyHistogram();
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+    private final LatencyHistogram runDuration = new LatencyHistogram();
+    private volatile long lastRunNanos;
+
+    public void registerMBean(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this,
+                new ObjectName("pl.javastart.mockitomailing:type=NotifierMetrics,name=" + name));
+    }
+
+    @Override
+    public void signupsScanned(long count) {
+        signupsScanned.add(count);
+    }
+
+    @Override
+    public void acceptableSignupsFound(long count) {
+        acceptableSignupsFound.add(count);
+    }
+
+    @Override
+    public void recipientsRejectedByEmailChecker(long count) {
+        recipientsRejectedByEmailChecker.add(count);
+    }
+
+    @Override
+    public void messageRendered(long nanos) {
+        renderLatency.record(nanos);
+    }
+
+    @Override
+    public void mailSent(long nanos, boolean success) {
+        sendLatency.record(nanos);
+        if (!success) {
+            sendCallsFailed.increment();
+        }
+    }
+
+    @Override
+    public void batchSent(int mails, long nanos, boolean success) {
+        sendLatency.record(nanos);
+        if (!success) {
+            sendCallsFailed.increment();
+        }
+    }
+
+    @Override
+    public void runCompleted(long nanos, long mailsSent, long mailsFailed) {
+        runs.increment();
+        this.mailsSent.add(mailsSent);
+        this.mailsFailed.add(mailsFailed);
+        runDuration.record(nanos);
+        lastRunNanos = nanos;
+    }
+
+    public LatencyHistogram getRenderLatency() {
+        return renderLatency;
+    }
+
+    public LatencyHistogram getSendLatency() {
+        return sendLatency;
+    }
+
+    public LatencyHistogram getRunDuration() {
+        return runDuration;
+    }
+
+    @Override
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    @Override
+    public long getSignupsScanned() {
+        return signupsScanned.sum();
+    }
+
+    @Override
+    public long getAcceptableSignupsFound() {
+        return acceptableSignupsFound.sum();
+    }
+
+    @Override
+    public long getRecipientsRejectedByEmailChecker() {
+        return recipientsRejectedByEmailChecker.sum();
+    }
+
+    @Override
+    public long getMailsSent() {
+        return mailsSent.sum();
+    }
+
+    @Override
+    public long getMailsFailed() {
+        return mailsFailed.sum();
+    }
+
+    @Override
+    public long getSendCallsFailed() {
+        return sendCallsFailed.sum();
+    }
+
+    @Override
+    public long getRenderMeanNanos() {
+        return renderLatency.getMeanNanos();
+    }
+
+    @Override
+    public long getSendMeanNanos() {
+        return sendLatency.getMeanNanos();
+    }
+
+    @Override
+    public long getSendP99Nanos() {
+        return sendLatency.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getSendMaxNanos() {
+        return sendLatency.getMaxNanos();
+    }
+
+    @Override
+    public long getLastRunNanos() {
+        return lastRunNanos;
+    }
+}
@@ -0,0 +1,28 @@
+package pl.javastart.mockitomailing.metrics;
+
+public interface InMemoryNotifierMetricsMBean {
+
+    long getRuns();
+
+    long getSignupsScanned();
+
+    long getAcceptableSignupsFound();
+
+    long getRecipientsRejectedByEmailChecker();
+
+    long getMailsSent();
+
+    long getMailsFailed();
+
+    long getSendCallsFailed();
+
+    long getRenderMeanNanos();
+
+    long getSendMeanNanos();
+
+    long getSendP99Nanos();
+
+    long getSendMaxNanos();
+
+    long getLastRunNanos();
+}
@@ -0,0 +1,54 @@
+package pl.javastart.mockitomailing.metrics;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+public class MeteredMailSystem implements MailSystem {
+
+    private MailSystem delegate;
+    private NotifierMetrics metrics;
+
+    public MeteredMailSystem(MailSystem delegate, NotifierMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void sendEmail(String emailAddress, String title, String text) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.sendEmail(emailAddress, title, text);
+            success = true;
+        } finally {
+            metrics.mailSent(System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public void sendEncodedEmail(String emailAddress, String title, ByteBuffer utf8Text) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.sendEncodedEmail(emailAddress, title, utf8Text);
+            success = true;
+        } finally {
+            metrics.mailSent(System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public void sendBatch(Collection<OutgoingMail> mails) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            delegate.sendBatch(mails);
+            success = true;
+        } finally {
+            metrics.batchSent(mails.size(), System.nanoTime() - start, success);
+        }
+    }
+}
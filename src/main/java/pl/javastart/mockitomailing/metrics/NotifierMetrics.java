@@ -0,0 +1,28 @@
+package pl.javastart.mockitomailing.metrics;
+
+public interface NotifierMetrics {
+
+    NotifierMetrics NONE = new NotifierMetrics() {
+    };
+
+    default void signupsScanned(long count) {
+    }
+
+    default void acceptableSignupsFound(long count) {
+    }
+
+    default void recipientsRejectedByEmailChecker(long count) {
+    }
+
+    default void messageRendered(long nanos) {
+    }
+
+    default void mailSent(long nanos, boolean success) {
+    }
+
+    default void batchSent(int mails, long nanos, boolean success) {
+    }
+
+    default void runCompleted(long nanos, long mailsSent, long mailsFailed) {
+    }
+}
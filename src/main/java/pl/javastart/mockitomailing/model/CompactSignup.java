@@ -0,0 +1,74 @@
+package pl.javastart.mockitomailing.model;
+
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.time.LocalDate;
+
+public class CompactSignup {
+
+    public static final int NO_ACCESS_FROM = Integer.MIN_VALUE;
+
+    private final int userId;
+    private final int courseId;
+    private final int accessFromEpochDay;
+    private final int accessToEpochDay;
+
+    public CompactSignup(int userId, int courseId, int accessFromEpochDay, int accessToEpochDay) {
+        this.userId = userId;
+        this.courseId = courseId;
+        this.accessFromEpochDay = accessFromEpochDay;
+        this.accessToEpochDay = accessToEpochDay;
+    }
+
+    public static CompactSignup of(Signup signup, NameDictionary userNames, NameDictionary courseNames) {
+        return new CompactSignup(userNames.idOf(signup.getUser()), courseNames.idOf(signup.getCourse()),
+                accessFromEpochDayOf(signup), accessToEpochDayOf(signup));
+    }
+
+    public static int accessFromEpochDayOf(Signup signup) {
+        LocalDate accessFrom = signup.getAccessFrom();
+        return accessFrom == null ? NO_ACCESS_FROM : (int) accessFrom.toEpochDay();
+    }
+
+    public static int accessToEpochDayOf(Signup signup) {
+        if (signup.getAccessTo() == null) {
+            throw new IllegalArgumentException("Missing accessTo date in " + signup);
+        }
+        return (int) signup.getAccessTo().toEpochDay();
+    }
+
+    public static LocalDate accessFromOf(int accessFromEpochDay) {
+        return accessFromEpochDay == NO_ACCESS_FROM ? null : LocalDate.ofEpochDay(accessFromEpochDay);
+    }
+
+    public Signup toSignup(NameDictionary userNames, NameDictionary courseNames) {
+        return new Signup(userNames.nameOf(userId), courseNames.nameOf(courseId),
+                accessFromOf(accessFromEpochDay), LocalDate.ofEpochDay(accessToEpochDay));
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public int getCourseId() {
+        return courseId;
+    }
+
+    public int getAccessFromEpochDay() {
+        return accessFromEpochDay;
+    }
+
+    public int getAccessToEpochDay() {
+        return accessToEpochDay;
+    }
+
+    @Override
+    public String toString() {
+        return "CompactSignup{" +
+                "userId=" + userId +
+                ", courseId=" + courseId +
+                ", accessFromEpochDay=" + accessFromEpochDay +
+                ", accessToEpochDay=" + accessToEpochDay +
+                '}';
+    }
+}
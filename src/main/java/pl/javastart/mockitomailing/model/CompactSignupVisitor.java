@@ -0,0 +1,6 @@
+package pl.javastart.mockitomailing.model;
+
+public interface CompactSignupVisitor {
+
+    void visit(int userId, int courseId, int accessFromEpochDay, int accessToEpochDay);
+}
@@ -0,0 +1,41 @@
+package pl.javastart.mockitomailing.model;
+
+import java.util.List;
+
+public class DryRunMail {
+
+    private User user;
+    private Signup acceptableSignup;
+    private List<Signup> signups;
+    private NotificationThreshold threshold;
+    private int messageBytes;
+
+    public DryRunMail(User user, Signup acceptableSignup, List<Signup> signups, NotificationThreshold threshold,
+                      int messageBytes) {
+        this.user = user;
+        this.acceptableSignup = acceptableSignup;
+        this.signups = signups;
+        this.threshold = threshold;
+        this.messageBytes = messageBytes;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public Signup getAcceptableSignup() {
+        return acceptableSignup;
+    }
+
+    public List<Signup> getSignups() {
+        return signups;
+    }
+
+    public NotificationThreshold getThreshold() {
+        return threshold;
+    }
+
+    public int getMessageBytes() {
+        return messageBytes;
+    }
+}
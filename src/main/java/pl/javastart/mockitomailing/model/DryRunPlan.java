@@ -0,0 +1,67 @@
+package pl.javastart.mockitomailing.model;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class DryRunPlan {
+
+    private LocalDate day;
+    private List<DryRunMail> mails;
+    private List<String> rejectedEmails;
+    private long[] mailCountByThreshold = new long[NotificationThreshold.values().length];
+    private long totalMessageBytes;
+
+    public DryRunPlan(LocalDate day, List<DryRunMail> mails, List<String> rejectedEmails) {
+        this.day = day;
+        this.mails = mails;
+        this.rejectedEmails = rejectedEmails;
+        for (DryRunMail mail : mails) {
+            mailCountByThreshold[mail.getThreshold().ordinal()]++;
+            totalMessageBytes += mail.getMessageBytes();
+        }
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public List<DryRunMail> getMails() {
+        return mails;
+    }
+
+    public Stream<DryRunMail> stream() {
+        return mails.stream();
+    }
+
+    public int getMailCount() {
+        return mails.size();
+    }
+
+    public long getMailCount(NotificationThreshold threshold) {
+        return mailCountByThreshold[threshold.ordinal()];
+    }
+
+    public List<String> getRejectedEmails() {
+        return rejectedEmails;
+    }
+
+    public long getTotalMessageBytes() {
+        return totalMessageBytes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder thresholds = new StringBuilder();
+        for (NotificationThreshold threshold : NotificationThreshold.values()) {
+            thresholds.append(", ").append(threshold).append('=').append(getMailCount(threshold));
+        }
+        return "DryRunPlan{" +
+                "day=" + day +
+                ", mails=" + mails.size() +
+                thresholds +
+                ", rejectedEmails=" + rejectedEmails.size() +
+                ", totalMessageBytes=" + totalMessageBytes +
+                '}';
+    }
+}
@@ -0,0 +1,150 @@
+package pl.javastart.mockitomailing.model;
+
+import pl.javastart.mockitomailing.util.LruMap;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+public class MessageBodyCache {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<Fingerprint, RenderedBody> bodies;
+
+    public MessageBodyCache(int maxEntries) {
+        this.bodies = new LruMap<>(maxEntries);
+    }
+
+    public RenderedBody get(LocalDate today, Signup signup, List<Signup> userSignups, Supplier<String> bodyRenderer) {
+        Fingerprint fingerprint = new Fingerprint(today, signup, userSignups);
+        RenderedBody body;
+        synchronized (bodies) {
+            body = bodies.get(fingerprint);
+        }
+        if (body != null) {
+            hits.increment();
+            return body;
+        }
+
+        misses.increment();
+        body = new RenderedBody(bodyRenderer.get());
+        synchronized (bodies) {
+            bodies.put(fingerprint, body);
+        }
+        return body;
+    }
+
+    public int size() {
+        synchronized (bodies) {
+            return bodies.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    public static class RenderedBody {
+
+        private final String text;
+        private final byte[] utf8;
+
+        private RenderedBody(String text) {
+            this.text = text;
+            this.utf8 = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public byte[] getUtf8() {
+            return utf8;
+        }
+    }
+
+    private static class Fingerprint {
+
+        private final long todayEpochDay;
+        private final String course;
+        private final long accessToEpochDay;
+        private final boolean withOtherCourses;
+        private final String[] otherCourses;
+        private final long[] otherAccessToEpochDays;
+        private final int hash;
+
+        private Fingerprint(LocalDate today, Signup signup, List<Signup> userSignups) {
+            this.todayEpochDay = today.toEpochDay();
+            this.course = signup.getCourse();
+            this.accessToEpochDay = signup.getAccessTo().toEpochDay();
+            this.withOtherCourses = userSignups.size() != 1;
+
+            int others = 0;
+            if (withOtherCourses) {
+                for (Signup otherSignup : userSignups) {
+                    if (otherSignup != signup) {
+                        others++;
+                    }
+                }
+            }
+            this.otherCourses = new String[others];
+            this.otherAccessToEpochDays = new long[others];
+            if (withOtherCourses) {
+                int i = 0;
+                for (Signup otherSignup : userSignups) {
+                    if (otherSignup != signup) {
+                        otherCourses[i] = otherSignup.getCourse();
+                        otherAccessToEpochDays[i] = otherSignup.getAccessTo().toEpochDay();
+                        i++;
+                    }
+                }
+            }
+
+            int result = Long.hashCode(todayEpochDay);
+            result = 31 * result + Objects.hashCode(course);
+            result = 31 * result + Long.hashCode(accessToEpochDay);
+            result = 31 * result + Boolean.hashCode(withOtherCourses);
+            result = 31 * result + Arrays.hashCode(otherCourses);
+            result = 31 * result + Arrays.hashCode(otherAccessToEpochDays);
+            this.hash = result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) o;
+            return hash == that.hash
+                    && todayEpochDay == that.todayEpochDay
+                    && accessToEpochDay == that.accessToEpochDay
+                    && withOtherCourses == that.withOtherCourses
+                    && Objects.equals(course, that.course)
+                    && Arrays.equals(otherCourses, that.otherCourses)
+                    && Arrays.equals(otherAccessToEpochDays, that.otherAccessToEpochDays);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package pl.javastart.mockitomailing.model;
+
+public interface MessageSink {
+
+    void append(CharSequence text);
+
+    void appendEncoded(String text, byte[] utf8);
+}
@@ -0,0 +1,55 @@
+package pl.javastart.mockitomailing.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MessageTemplate {
+
+    private final String[] literals;
+    private final byte[][] encodedLiterals;
+    private final int[] placeholders;
+
+    private MessageTemplate(String[] literals, int[] placeholders) {
+        this.literals = literals;
+        this.encodedLiterals = new byte[literals.length][];
+        for (int i = 0; i < literals.length; i++) {
+            encodedLiterals[i] = literals[i].getBytes(StandardCharsets.UTF_8);
+        }
+        this.placeholders = placeholders;
+    }
+
+    public static MessageTemplate compile(String pattern) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        int literalStart = 0;
+        int open = pattern.indexOf('{');
+        while (open >= 0) {
+            int close = pattern.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template: " + pattern);
+            }
+            literals.add(pattern.substring(literalStart, open));
+            placeholders.add(Integer.parseInt(pattern.substring(open + 1, close)));
+            literalStart = close + 1;
+            open = pattern.indexOf('{', literalStart);
+        }
+        literals.add(pattern.substring(literalStart));
+
+        return new MessageTemplate(literals.toArray(new String[0]),
+                placeholders.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public void renderTo(MessageSink out, PlaceholderWriter writer) {
+        out.appendEncoded(literals[0], encodedLiterals[0]);
+        for (int i = 0; i < placeholders.length; i++) {
+            writer.write(placeholders[i], out);
+            out.appendEncoded(literals[i + 1], encodedLiterals[i + 1]);
+        }
+    }
+
+    public interface PlaceholderWriter {
+
+        void write(int placeholder, MessageSink out);
+    }
+}
@@ -0,0 +1,8 @@
+package pl.javastart.mockitomailing.model;
+
+public enum NotificationThreshold {
+    ONE_DAY,
+    SEVEN_DAYS,
+    ONE_MONTH,
+    THREE_MONTHS
+}
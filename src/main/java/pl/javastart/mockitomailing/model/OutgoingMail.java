@@ -0,0 +1,64 @@
+package pl.javastart.mockitomailing.model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class OutgoingMail {
+
+    private String emailAddress;
+    private String title;
+    private String text;
+    private ByteBuffer encodedText;
+
+    public OutgoingMail(String emailAddress, String title, String text) {
+        this.emailAddress = emailAddress;
+        this.title = title;
+        this.text = text;
+    }
+
+    public OutgoingMail(String emailAddress, String title, ByteBuffer encodedText) {
+        this.emailAddress = emailAddress;
+        this.title = title;
+        this.encodedText = encodedText;
+    }
+
+    public String getEmailAddress() {
+        return emailAddress;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getText() {
+        if (text == null && encodedText != null) {
+            return StandardCharsets.UTF_8.decode(encodedText.duplicate()).toString();
+        }
+        return text;
+    }
+
+    public boolean isEncoded() {
+        return encodedText != null;
+    }
+
+    public ByteBuffer getEncodedText() {
+        return encodedText == null ? null : encodedText.duplicate();
+    }
+
+    public void detachEncodedText() {
+        if (encodedText != null) {
+            ByteBuffer copy = ByteBuffer.allocate(encodedText.remaining());
+            copy.put(encodedText.duplicate());
+            copy.flip();
+            encodedText = copy;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "OutgoingMail{" +
+                "emailAddress='" + emailAddress + '\'' +
+                ", title='" + title + '\'' +
+                '}';
+    }
+}
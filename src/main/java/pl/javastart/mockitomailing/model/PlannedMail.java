@@ -0,0 +1,26 @@
+package pl.javastart.mockitomailing.model;
+
+public class PlannedMail {
+
+    private OutgoingMail mail;
+    private Signup acceptableSignup;
+    private NotificationThreshold threshold;
+
+    public PlannedMail(OutgoingMail mail, Signup acceptableSignup, NotificationThreshold threshold) {
+        this.mail = mail;
+        this.acceptableSignup = acceptableSignup;
+        this.threshold = threshold;
+    }
+
+    public OutgoingMail getMail() {
+        return mail;
+    }
+
+    public Signup getAcceptableSignup() {
+        return acceptableSignup;
+    }
+
+    public NotificationThreshold getThreshold() {
+        return threshold;
+    }
+}
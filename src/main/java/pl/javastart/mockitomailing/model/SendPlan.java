@@ -0,0 +1,31 @@
+package pl.javastart.mockitomailing.model;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class SendPlan {
+
+    private LocalDate day;
+    private List<PlannedMail> mails;
+
+    public SendPlan(LocalDate day, List<PlannedMail> mails) {
+        this.day = day;
+        this.mails = mails;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public List<PlannedMail> getMails() {
+        return mails;
+    }
+
+    @Override
+    public String toString() {
+        return "SendPlan{" +
+                "day=" + day +
+                ", mails=" + mails.size() +
+                '}';
+    }
+}
@@ -17,6 +17,10 @@ public class Signup {
         this.accessTo = accessTo;
     }
 
+    public LocalDate getAccessFrom() {
+        return accessFrom;
+    }
+
     public LocalDate getAccessTo() {
         return accessTo;
     }
@@ -0,0 +1,24 @@
+package pl.javastart.mockitomailing.model;
+
+class StringBuilderSink implements MessageSink {
+
+    private final StringBuilder out;
+
+    StringBuilderSink(StringBuilder out) {
+        this.out = out;
+    }
+
+    StringBuilder getBuilder() {
+        return out;
+    }
+
+    @Override
+    public void append(CharSequence text) {
+        out.append(text);
+    }
+
+    @Override
+    public void appendEncoded(String text, byte[] utf8) {
+        out.append(text);
+    }
+}
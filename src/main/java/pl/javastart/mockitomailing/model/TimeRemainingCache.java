@@ -0,0 +1,64 @@
+package pl.javastart.mockitomailing.model;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+public class TimeRemainingCache {
+
+    private final int maxEntries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Phrases phrases = new Phrases(Long.MIN_VALUE);
+
+    public TimeRemainingCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public String get(LocalDate today, LocalDate accessTo, BiFunction<LocalDate, LocalDate, String> phraseFactory) {
+        Phrases current = phrases;
+        if (current.todayEpochDay != today.toEpochDay()) {
+            current = new Phrases(today.toEpochDay());
+            phrases = current;
+        }
+
+        Long accessToEpochDay = accessTo.toEpochDay();
+        String phrase = current.byAccessTo.get(accessToEpochDay);
+        if (phrase != null) {
+            hits.increment();
+            return phrase;
+        }
+
+        misses.increment();
+        phrase = phraseFactory.apply(today, accessTo);
+        if (current.byAccessTo.size() < maxEntries) {
+            current.byAccessTo.put(accessToEpochDay, phrase);
+        }
+        return phrase;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public double getHitRate() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    private static class Phrases {
+
+        private final long todayEpochDay;
+        private final Map<Long, String> byAccessTo = new ConcurrentHashMap<>();
+
+        private Phrases(long todayEpochDay) {
+            this.todayEpochDay = todayEpochDay;
+        }
+    }
+}
@@ -1,75 +1,152 @@
 package pl.javastart.mockitomailing.model;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class UserMessageProvider {
 
+    private static final MessageTemplate HEADER = MessageTemplate.compile("Cześć {0},\n");
+    private static final MessageTemplate BODY = MessageTemplate.compile(
+            "za {0} kończy Ci się dostęp do kursu, {1}. Wykoszystaj maksymalnie ten czas!{2}\nPozdrawiamy");
+    private static final MessageTemplate OTHER_COURSES = MessageTemplate.compile(
+            "\nDostęp do Twoich pozostałych kursów: \n{0}");
+    private static final MessageTemplate OTHER_COURSE = MessageTemplate.compile((char) 8226 + " {0} - {1}");
+    private static final String OTHER_COURSE_SEPARATOR = "\n";
+    private static final byte[] ENCODED_OTHER_COURSE_SEPARATOR = OTHER_COURSE_SEPARATOR.getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+    private static final int TIME_REMAINING_CACHE_SIZE = 4096;
+    private static final int DEFAULT_BODY_CACHE_SIZE = 1024;
+
+    private final ThreadLocal<StringBuilderSink> buffer = ThreadLocal.withInitial(() -> new StringBuilderSink(new StringBuilder(512)));
+    private final TimeRemainingCache timeRemainingCache = new TimeRemainingCache(TIME_REMAINING_CACHE_SIZE);
+    private final MessageBodyCache bodyCache;
+
+    public UserMessageProvider() {
+        this(DEFAULT_BODY_CACHE_SIZE);
+    }
+
+    public UserMessageProvider(int bodyCacheSize) {
+        this.bodyCache = bodyCacheSize > 0 ? new MessageBodyCache(bodyCacheSize) : null;
+    }
+
     public String prepareMessage(User user, Signup signup, List<Signup> userSignups, LocalDate today) {
-        if (userSignups.size() == 1) {
-            return prepareSingleCourseMessage(user, signup, today);
-        } else {
-            return prepareMultiCourseMessage(user, signup, userSignups, today);
+        StringBuilderSink sink = buffer.get();
+        StringBuilder out = sink.getBuilder();
+        out.setLength(0);
+        renderMessage(sink, user, signup, userSignups, today);
+        String message = out.toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER_CAPACITY) {
+            buffer.remove();
         }
+        return message;
     }
 
-    private String prepareMultiCourseMessage(User user, Signup signup, List<Signup> userSignups, LocalDate today) {
-        return prepareHeader(user) + prepareBody(today, signup) + prepareOtherCoursesTimeRemaining(signup, userSignups,
-                today) + prepareFooter();
+    public ByteBuffer prepareMessage(User user, Signup signup, List<Signup> userSignups, LocalDate today, ByteBuffer out) {
+        Utf8Output message = new Utf8Output(out);
+        renderMessage(message, user, signup, userSignups, today);
+        return message.finish();
     }
 
-    private String prepareSingleCourseMessage(User user, Signup signup, LocalDate today) {
-        return prepareHeader(user) + prepareBody(today, signup) + prepareFooter();
+    public int measureMessage(User user, Signup signup, List<Signup> userSignups, LocalDate today) {
+        Utf8LengthSink message = new Utf8LengthSink();
+        renderMessage(message, user, signup, userSignups, today);
+        return message.getLength();
     }
 
     public String prepareTitle() {
         return "";
     }
 
-    private String prepareFooter() {
-        return "\nPozdrawiamy";
+    public TimeRemainingCache getTimeRemainingCache() {
+        return timeRemainingCache;
+    }
+
+    public MessageBodyCache getBodyCache() {
+        return bodyCache;
+    }
+
+    private void renderMessage(MessageSink out, User user, Signup signup, List<Signup> userSignups, LocalDate today) {
+        HEADER.renderTo(out, (placeholder, header) -> header.append(user.getName()));
+        if (bodyCache == null) {
+            renderBody(out, signup, userSignups, today);
+        } else {
+            MessageBodyCache.RenderedBody body = bodyCache.get(today, signup, userSignups, () -> {
+                StringBuilder rendered = new StringBuilder(256);
+                renderBody(new StringBuilderSink(rendered), signup, userSignups, today);
+                return rendered.toString();
+            });
+            out.appendEncoded(body.getText(), body.getUtf8());
+        }
+    }
+
+    private void renderBody(MessageSink out, Signup signup, List<Signup> userSignups, LocalDate today) {
+        BODY.renderTo(out, (placeholder, message) -> {
+            switch (placeholder) {
+                case 0:
+                    message.append(timeRemaining(today, signup.getAccessTo()));
+                    break;
+                case 1:
+                    message.append(signup.getCourse());
+                    break;
+                default:
+                    if (userSignups.size() != 1) {
+                        appendOtherCoursesTimeRemaining(message, signup, userSignups, today);
+                    }
+            }
+        });
     }
 
-    private String prepareBody(LocalDate today, Signup signup) {
-        return "za " + timeRemaining(today, signup) +
-                " kończy Ci się dostęp do kursu, " + signup.getCourse() +
-                ". Wykoszystaj maksymalnie ten czas!";
+    private void appendOtherCoursesTimeRemaining(MessageSink out, Signup signup, List<Signup> userSignups, LocalDate today) {
+        OTHER_COURSES.renderTo(out, (placeholder, message) -> listOtherCourses(message, signup, userSignups, today));
     }
 
-    private String prepareOtherCoursesTimeRemaining(Signup signup, List<Signup> userSignups, LocalDate today) {
-        return "\nDostęp do Twoich pozostałych kursów: \n" + listOtherCourses(signup, userSignups, today);
+    private void listOtherCourses(MessageSink out, Signup signup, List<Signup> userSignups, LocalDate today) {
+        boolean first = true;
+        for (Signup otherSignup : userSignups) {
+            if (otherSignup.equals(signup)) {
+                continue;
+            }
+            if (!first) {
+                out.appendEncoded(OTHER_COURSE_SEPARATOR, ENCODED_OTHER_COURSE_SEPARATOR);
+            }
+            first = false;
+            OTHER_COURSE.renderTo(out, (placeholder, line) -> {
+                if (placeholder == 0) {
+                    line.append(otherSignup.getCourse());
+                } else {
+                    line.append(timeRemaining(today, otherSignup.getAccessTo()));
+                }
+            });
+        }
     }
 
-    private String listOtherCourses(Signup signup, List<Signup> userSignups, LocalDate today) {
-        return userSignups
-                .stream()
-                .filter(signupInStream -> !signupInStream.equals(signup))
-                .map(signupInStream -> (char) 8226 + " " + signupInStream.getCourse() + " - " + timeRemaining(today, signupInStream))
-                .collect(Collectors.joining("\n"));
+    private String timeRemaining(LocalDate today, LocalDate accessTo) {
+        return timeRemainingCache.get(today, accessTo, this::computeTimeRemaining);
     }
 
-    private String timeRemaining(LocalDate today, Signup signup) {
-        LocalDate localDate = LocalDate.of(signup.getAccessTo().getYear(), signup.getAccessTo().getMonth(), signup.getAccessTo().getDayOfMonth());
-        String result = "";
+    private String computeTimeRemaining(LocalDate today, LocalDate accessTo) {
+        StringBuilder out = new StringBuilder(24);
+        LocalDate localDate = accessTo;
+        boolean monthsAppended = false;
 
         long monthsDifference = ChronoUnit.MONTHS.between(today, localDate);
         if (monthsDifference != 0) {
-            result += monthsDifference;
-            result += getRightMonthSpelling(monthsDifference);
+            out.append(monthsDifference).append(getRightMonthSpelling(monthsDifference));
             localDate = localDate.minus(monthsDifference, ChronoUnit.MONTHS);
+            monthsAppended = true;
         }
 
         long daysDifference = ChronoUnit.DAYS.between(today, localDate);
         if (daysDifference != 0) {
-            if (!result.isEmpty()) {
-                result += " i ";
+            if (monthsAppended) {
+                out.append(" i ");
             }
-            result += daysDifference;
-            result += getRightDaySpelling(daysDifference);
+            out.append(daysDifference).append(getRightDaySpelling(daysDifference));
         }
-        return result;
+        return out.toString();
     }
 
     private String getRightDaySpelling(long daysDifference) {
@@ -90,9 +167,4 @@ public class UserMessageProvider {
             return " miesięcy";
         }
     }
-
-
-    private String prepareHeader(User user) {
-        return "Cześć " + user.getName() + ",\n";
-    }
 }
@@ -0,0 +1,46 @@
+package pl.javastart.mockitomailing.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class UserSignups {
+
+    private Signup acceptableSignup;
+    private int acceptableSignupCount;
+    private List<Signup> signups = new ArrayList<>();
+
+    public void add(Signup signup, boolean acceptable) {
+        signups.add(signup);
+        if (acceptable) {
+            acceptableSignupCount++;
+            if (acceptableSignup == null) {
+                acceptableSignup = signup;
+            }
+        }
+    }
+
+    public UserSignups merge(UserSignups later) {
+        signups.addAll(later.signups);
+        acceptableSignupCount += later.acceptableSignupCount;
+        if (acceptableSignup == null) {
+            acceptableSignup = later.acceptableSignup;
+        }
+        return this;
+    }
+
+    public boolean hasAcceptableSignup() {
+        return acceptableSignup != null;
+    }
+
+    public Signup getAcceptableSignup() {
+        return acceptableSignup;
+    }
+
+    public int getAcceptableSignupCount() {
+        return acceptableSignupCount;
+    }
+
+    public List<Signup> getSignups() {
+        return signups;
+    }
+}
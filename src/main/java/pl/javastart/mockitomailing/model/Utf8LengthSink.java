@@ -0,0 +1,35 @@
+package pl.javastart.mockitomailing.model;
+
+class Utf8LengthSink implements MessageSink {
+
+    private int length;
+
+    int getLength() {
+        return length;
+    }
+
+    @Override
+    public void append(CharSequence text) {
+        int chars = text.length();
+        for (int i = 0; i < chars; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars && Character.isLowSurrogate(text.charAt(i + 1))) {
+                i++;
+                length += 4;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+    }
+
+    @Override
+    public void appendEncoded(String text, byte[] utf8) {
+        length += utf8.length;
+    }
+}
@@ -0,0 +1,65 @@
+package pl.javastart.mockitomailing.model;
+
+import java.nio.ByteBuffer;
+
+public class Utf8Output implements MessageSink {
+
+    private ByteBuffer buffer;
+
+    public Utf8Output(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void append(CharSequence text) {
+        int length = text.length();
+        ensureRemaining(length);
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensureRemaining(2 + length - i);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                ensureRemaining(4 + length - i);
+                buffer.put((byte) (0xF0 | (codePoint >> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                ensureRemaining(1 + length - i);
+                buffer.put((byte) '?');
+            } else {
+                ensureRemaining(3 + length - i);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    @Override
+    public void appendEncoded(String text, byte[] utf8) {
+        ensureRemaining(utf8.length);
+        buffer.put(utf8);
+    }
+
+    public ByteBuffer finish() {
+        buffer.flip();
+        return buffer;
+    }
+
+    private void ensureRemaining(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytes);
+        ByteBuffer grown = buffer.isDirect() ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+    }
+}
@@ -0,0 +1,46 @@
+package pl.javastart.mockitomailing.util;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ByteBufferPool {
+
+    private final int bufferCapacity;
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer> pooled;
+    private final LongAdder allocations = new LongAdder();
+
+    public ByteBufferPool(int bufferCapacity, int maxPooled, boolean direct) {
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("bufferCapacity must be positive: " + bufferCapacity);
+        }
+        if (maxPooled < 1) {
+            throw new IllegalArgumentException("maxPooled must be positive: " + maxPooled);
+        }
+        this.bufferCapacity = bufferCapacity;
+        this.direct = direct;
+        this.pooled = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pooled.poll();
+        if (buffer == null) {
+            allocations.increment();
+            return direct ? ByteBuffer.allocateDirect(bufferCapacity) : ByteBuffer.allocate(bufferCapacity);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() >= bufferCapacity && buffer.isDirect() == direct) {
+            pooled.offer(buffer);
+        }
+    }
+
+    public long getAllocations() {
+        return allocations.sum();
+    }
+}
@@ -0,0 +1,108 @@
+package pl.javastart.mockitomailing.util;
+
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+public class EligibilityCalendar {
+
+    private static final NotificationThreshold[] THRESHOLDS = NotificationThreshold.values();
+
+    private final LocalDate today;
+    private final int firstEpochDay;
+    private final byte[] thresholdOrdinalsPlusOne;
+    private final int[] rangeStarts;
+    private final int[] rangeEnds;
+
+    private EligibilityCalendar(LocalDate today, int firstEpochDay, byte[] thresholdOrdinalsPlusOne,
+                                int[] rangeStarts, int[] rangeEnds) {
+        this.today = today;
+        this.firstEpochDay = firstEpochDay;
+        this.thresholdOrdinalsPlusOne = thresholdOrdinalsPlusOne;
+        this.rangeStarts = rangeStarts;
+        this.rangeEnds = rangeEnds;
+    }
+
+    public static EligibilityCalendar of(LocalDate today) {
+        int firstEpochDay = (int) today.plusDays(1).toEpochDay();
+        byte[] thresholdOrdinalsPlusOne = new byte[(int) today.plusMonths(4).toEpochDay() - firstEpochDay + 1];
+        List<int[]> ranges = new ArrayList<>();
+        NotificationThreshold previous = null;
+        for (int offset = 0; offset < thresholdOrdinalsPlusOne.length; offset++) {
+            int accessToEpochDay = firstEpochDay + offset;
+            NotificationThreshold threshold = thresholdOf(today, LocalDate.ofEpochDay(accessToEpochDay));
+            if (threshold != null) {
+                thresholdOrdinalsPlusOne[offset] = (byte) (threshold.ordinal() + 1);
+                if (threshold == previous) {
+                    ranges.get(ranges.size() - 1)[1] = accessToEpochDay;
+                } else {
+                    ranges.add(new int[]{accessToEpochDay, accessToEpochDay});
+                }
+            }
+            previous = threshold;
+        }
+
+        int[] rangeStarts = new int[ranges.size()];
+        int[] rangeEnds = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            rangeStarts[i] = ranges.get(i)[0];
+            rangeEnds[i] = ranges.get(i)[1];
+        }
+        return new EligibilityCalendar(today, firstEpochDay, thresholdOrdinalsPlusOne, rangeStarts, rangeEnds);
+    }
+
+    public static boolean isAcceptable(LocalDate today, LocalDate accessTo) {
+        return thresholdOf(today, accessTo) != null;
+    }
+
+    public static NotificationThreshold thresholdOf(LocalDate today, LocalDate accessTo) {
+        long monthsDifference = ChronoUnit.MONTHS.between(today, accessTo);
+        long daysDifference = ChronoUnit.DAYS.between(today, accessTo);
+
+        if (monthsDifference == 3) {
+            return NotificationThreshold.THREE_MONTHS;
+        } else if (monthsDifference == 1) {
+            return NotificationThreshold.ONE_MONTH;
+        } else if (daysDifference == 7) {
+            return NotificationThreshold.SEVEN_DAYS;
+        } else if (daysDifference == 1) {
+            return NotificationThreshold.ONE_DAY;
+        }
+        return null;
+    }
+
+    public LocalDate getToday() {
+        return today;
+    }
+
+    public boolean isAcceptable(LocalDate accessTo) {
+        return isAcceptable((int) accessTo.toEpochDay());
+    }
+
+    public boolean isAcceptable(int accessToEpochDay) {
+        return thresholdOrdinalPlusOne(accessToEpochDay) != 0;
+    }
+
+    public NotificationThreshold thresholdOf(LocalDate accessTo) {
+        int thresholdOrdinalPlusOne = thresholdOrdinalPlusOne((int) accessTo.toEpochDay());
+        return thresholdOrdinalPlusOne == 0 ? null : THRESHOLDS[thresholdOrdinalPlusOne - 1];
+    }
+
+    public void forEachRange(BiConsumer<LocalDate, LocalDate> action) {
+        for (int i = 0; i < rangeStarts.length; i++) {
+            action.accept(LocalDate.ofEpochDay(rangeStarts[i]), LocalDate.ofEpochDay(rangeEnds[i]));
+        }
+    }
+
+    private int thresholdOrdinalPlusOne(int accessToEpochDay) {
+        int offset = accessToEpochDay - firstEpochDay;
+        if (offset < 0 || offset >= thresholdOrdinalsPlusOne.length) {
+            return 0;
+        }
+        return thresholdOrdinalsPlusOne[offset];
+    }
+}
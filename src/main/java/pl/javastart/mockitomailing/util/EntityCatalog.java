@@ -0,0 +1,71 @@
+package pl.javastart.mockitomailing.util;
+
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EntityCatalog {
+
+    private final NameDictionary userNames = new NameDictionary();
+    private final NameDictionary courseNames = new NameDictionary();
+    private final List<User> usersById = new ArrayList<>();
+    private final List<Course> coursesById = new ArrayList<>();
+
+    public static EntityCatalog of(Database database) {
+        EntityCatalog catalog = new EntityCatalog();
+        for (User user : database.getAllUsers()) {
+            catalog.addUser(user);
+        }
+        for (Course course : database.getAllCourses()) {
+            catalog.addCourse(course);
+        }
+        return catalog;
+    }
+
+    public int addUser(User user) {
+        int userId = userNames.idOf(user.getName());
+        if (userId == usersById.size()) {
+            usersById.add(user);
+        } else if (userId > usersById.size()) {
+            throw new IllegalStateException("User " + user.getName() + " added after signups referenced it");
+        }
+        return userId;
+    }
+
+    public int addCourse(Course course) {
+        int courseId = courseNames.idOf(course.getTitle());
+        if (courseId == coursesById.size()) {
+            coursesById.add(course);
+        } else if (courseId > coursesById.size()) {
+            throw new IllegalStateException("Course " + course.getTitle() + " added after signups referenced it");
+        }
+        return courseId;
+    }
+
+    public NameDictionary getUserNames() {
+        return userNames;
+    }
+
+    public NameDictionary getCourseNames() {
+        return courseNames;
+    }
+
+    public User userOf(int userId) {
+        return userId < usersById.size() ? usersById.get(userId) : null;
+    }
+
+    public Course courseOf(int courseId) {
+        return courseId < coursesById.size() ? coursesById.get(courseId) : null;
+    }
+
+    public int getUserCount() {
+        return usersById.size();
+    }
+
+    public int getCourseCount() {
+        return coursesById.size();
+    }
+}
@@ -0,0 +1,37 @@
+package pl.javastart.mockitomailing.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class NameDictionary {
+
+    public static final int NOT_FOUND = -1;
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final List<String> namesById = new ArrayList<>();
+
+    public int idOf(String name) {
+        Integer id = idsByName.get(name);
+        if (id == null) {
+            id = namesById.size();
+            idsByName.put(name, id);
+            namesById.add(name);
+        }
+        return id;
+    }
+
+    public int find(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? NOT_FOUND : id;
+    }
+
+    public String nameOf(int id) {
+        return namesById.get(id);
+    }
+
+    public int size() {
+        return namesById.size();
+    }
+}
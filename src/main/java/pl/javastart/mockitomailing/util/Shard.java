@@ -0,0 +1,38 @@
+package pl.javastart.mockitomailing.util;
+
+public class Shard {
+
+    public static final Shard ALL = new Shard(0, 1);
+
+    private final int index;
+    private final int count;
+
+    public Shard(int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + " of " + count);
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    public boolean contains(String userName) {
+        if (count == 1) {
+            return true;
+        }
+        int hash = userName.hashCode() * 0x9E3779B9;
+        return Math.floorMod(hash ^ (hash >>> 16), count) == index;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "Shard{" + index + "/" + count + '}';
+    }
+}
@@ -0,0 +1,76 @@
+package pl.javastart.mockitomailing;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+
+public class CachingEmailAddressCheckerTest {
+
+    List<Collection<String>> delegateCalls;
+    long now;
+    CachingEmailAddressChecker checker;
+
+    @Before
+    public void init() {
+        delegateCalls = new ArrayList<>();
+        EmailAddressChecker delegate = new EmailAddressChecker() {
+            @Override
+            public boolean checkmail(String email) {
+                return checkAll(Arrays.asList(email)).contains(email);
+            }
+
+            @Override
+            public Set<String> checkAll(Collection<String> emails) {
+                delegateCalls.add(new ArrayList<>(emails));
+                return emails.stream().filter(email -> email.contains("@")).collect(Collectors.toSet());
+            }
+        };
+        checker = new CachingEmailAddressChecker(delegate, Duration.ofHours(24), Duration.ofHours(1), 3, () -> now);
+    }
+
+    @Test
+    public void shouldCheckOnlyUncachedEmailsInOneBatch() {
+        checker.checkAll(Arrays.asList("Jan@gmail.com", "invalid"));
+        Set<String> validEmails = checker.checkAll(Arrays.asList("Jan@gmail.com", "invalid", "Marian@gmail.com"));
+
+        assertThat(validEmails, containsInAnyOrder("Jan@gmail.com", "Marian@gmail.com"));
+        assertThat(delegateCalls.size(), is(2));
+        assertThat(delegateCalls.get(1), containsInAnyOrder("Marian@gmail.com"));
+    }
+
+    @Test
+    public void shouldExpireNegativeResultsBeforePositiveOnes() {
+        checker.checkAll(Arrays.asList("Jan@gmail.com", "invalid"));
+
+        now += Duration.ofHours(2).toNanos();
+        checker.checkAll(Arrays.asList("Jan@gmail.com", "invalid"));
+
+        assertThat(delegateCalls.size(), is(2));
+        assertThat(delegateCalls.get(1), containsInAnyOrder("invalid"));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntries() {
+        checker.checkmail("a@gmail.com");
+        checker.checkmail("b@gmail.com");
+        checker.checkmail("c@gmail.com");
+        checker.checkmail("a@gmail.com");
+        checker.checkmail("d@gmail.com");
+        checker.checkmail("a@gmail.com");
+        checker.checkmail("b@gmail.com");
+
+        assertThat(delegateCalls.size(), is(5));
+        assertThat(delegateCalls.get(4), containsInAnyOrder("b@gmail.com"));
+    }
+}
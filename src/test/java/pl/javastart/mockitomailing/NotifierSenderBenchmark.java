@@ -0,0 +1,87 @@
+package pl.javastart.mockitomailing;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+import pl.javastart.mockitomailing.util.EligibilityCalendar;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotifierSenderBenchmark {
+
+    @Param({"10000", "100000"})
+    int users;
+
+    @Param({"1", "3"})
+    int signupsPerUser;
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+    List<Signup> signups;
+    List<CompactSignup> compactSignups;
+    NotifierSender notifierSender;
+
+    @Setup
+    public void setUp() {
+        SyntheticData data = new SyntheticData(users, signupsPerUser, today, 42);
+        signups = data.getSignups();
+        NameDictionary userNames = new NameDictionary();
+        NameDictionary courseNames = new NameDictionary();
+        compactSignups = signups.stream()
+                .map(signup -> CompactSignup.of(signup, userNames, courseNames))
+                .collect(Collectors.toList());
+
+        DateProvider dateProvider = new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        };
+        notifierSender = new NotifierSender((emailAddress, title, text) -> {
+        }, data.toDatabase(), dateProvider, new UserMessageProvider(), email -> true);
+    }
+
+    @Benchmark
+    public Object prepareAndSendMails() {
+        return notifierSender.prepareAndSendMails();
+    }
+
+    @Benchmark
+    public Object dryRun() {
+        return notifierSender.dryRun();
+    }
+
+    @Benchmark
+    public void isAcceptableSignup(Blackhole blackhole) {
+        for (Signup signup : signups) {
+            blackhole.consume(notifierSender.isAcceptableSignup(today, signup));
+        }
+    }
+
+    @Benchmark
+    public void isAcceptableChronoUnit(Blackhole blackhole) {
+        for (Signup signup : signups) {
+            blackhole.consume(EligibilityCalendar.isAcceptable(today, signup.getAccessTo()));
+        }
+    }
+
+    @Benchmark
+    public void isAcceptableEpochDay(Blackhole blackhole) {
+        EligibilityCalendar calendar = EligibilityCalendar.of(today);
+        for (CompactSignup signup : compactSignups) {
+            blackhole.consume(calendar.isAcceptable(signup.getAccessToEpochDay()));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package pl.javastart.mockitomailing;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.dispatch.BatchingMailDispatcher;
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotifierSenderIncrementalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    DateProvider dateProvider;
+    InMemoryDatabase database;
+    List<String> sentMails;
+    String failingAddress;
+    Path sentLogFile;
+    SentLog sentLog;
+
+    @Before
+    public void init() throws IOException {
+        dateProvider = mock(DateProvider.class);
+        when(dateProvider.getCurrentDate()).thenReturn(LocalDate.of(2017, 10, 10));
+        sentMails = new ArrayList<>();
+
+        List<User> users = new ArrayList<>();
+        List<Signup> signups = new ArrayList<>();
+        for (String name : new String[]{"Jan", "Marian", "Kamil"}) {
+            users.add(new User(name, name + "@gmail.com"));
+            signups.add(new Signup(name, "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11)));
+        }
+        database = new InMemoryDatabase(users, signups, Collections.emptyList());
+
+        sentLogFile = temporaryFolder.getRoot().toPath().resolve("sent.log");
+        sentLog = SentLog.open(sentLogFile);
+    }
+
+    @After
+    public void close() throws IOException {
+        sentLog.close();
+    }
+
+    @Test
+    public void shouldResumeCrashedRunWithoutResending() throws IOException {
+        failingAddress = "Marian@gmail.com";
+        try {
+            newNotifierSender().prepareAndSendMails();
+        } catch (IllegalStateException e) {
+            // relay went down after the first mail
+        }
+        assertThat(sentMails, contains("Jan@gmail.com"));
+        sentLog.close();
+
+        failingAddress = null;
+        sentMails.clear();
+        sentLog = SentLog.open(sentLogFile);
+        newNotifierSender().prepareAndSendMails();
+        assertThat(sentMails, contains("Marian@gmail.com", "Kamil@gmail.com"));
+        assertThat(sentLog.getWatermark(), is(LocalDate.of(2017, 10, 10)));
+
+        sentMails.clear();
+        newNotifierSender().prepareAndSendMails();
+        assertThat(sentMails, is(empty()));
+    }
+
+    @Test
+    public void shouldCompactExpiredEntriesOnFirstRunOfNewDay() throws IOException {
+        newNotifierSender().prepareAndSendMails();
+        assertThat(sentLog.size(), is(3));
+
+        when(dateProvider.getCurrentDate()).thenReturn(LocalDate.of(2017, 10, 12));
+        newNotifierSender().prepareAndSendMails();
+
+        assertThat(sentLog.size(), is(0));
+        assertThat(Files.readAllLines(sentLogFile), contains("W\t2017-10-10"));
+    }
+
+    @Test
+    public void shouldNotGlueFirstRecordAfterCrashOntoTornLine() throws IOException {
+        Signup janSignup = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11));
+        Signup marianSignup = new Signup("Marian", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11));
+        sentLog.append(janSignup, NotificationThreshold.ONE_DAY);
+        sentLog.close();
+        Files.write(sentLogFile, "S\tMarian\tKurs Sp".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        sentLog = SentLog.open(sentLogFile);
+        sentLog.append(marianSignup, NotificationThreshold.ONE_DAY);
+        sentLog.close();
+        sentLog = SentLog.open(sentLogFile);
+
+        assertThat(sentLog.size(), is(2));
+        assertThat(sentLog.contains(janSignup, NotificationThreshold.ONE_DAY), is(true));
+        assertThat(sentLog.contains(marianSignup, NotificationThreshold.ONE_DAY), is(true));
+    }
+
+    @Test
+    public void shouldReloadLoggedSignupWithTabsAndLineBreaksInNames() throws IOException {
+        Signup signup = new Signup("Jan\tKowalski", "Kurs\nSpring\\", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11));
+        sentLog.append(signup, NotificationThreshold.ONE_DAY);
+        sentLog.close();
+
+        sentLog = SentLog.open(sentLogFile);
+        sentLog.compact(LocalDate.of(2017, 10, 10));
+
+        assertThat(sentLog.size(), is(1));
+        assertThat(sentLog.contains(signup, NotificationThreshold.ONE_DAY), is(true));
+        assertThat(sentLog.contains(new Signup("Jan", "Kowalski\tKurs\nSpring\\", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 10, 11)), NotificationThreshold.ONE_DAY), is(false));
+    }
+
+    @Test
+    public void shouldLogSignupOfEveryUserSharingAddress() {
+        useDatabaseWithSharedAddress();
+        NotifierSender notifierSender = newNotifierSender();
+        notifierSender.setMailDispatcher(new BatchingMailDispatcher(
+                (emailAddress, title, text) -> sentMails.add(emailAddress), 100, Duration.ofMinutes(1)));
+
+        notifierSender.prepareAndSendMails();
+
+        assertThat(sentMails, contains("family@gmail.com", "family@gmail.com"));
+        assertThat(sentLog.size(), is(2));
+    }
+
+    @Test
+    public void shouldLogSignupOfEveryUserSharingAddressThroughPipeline() {
+        useDatabaseWithSharedAddress();
+
+        newNotifierSender().prepareAndSendMailsThroughPipeline();
+
+        assertThat(sentMails, contains("family@gmail.com", "family@gmail.com"));
+        assertThat(sentLog.size(), is(2));
+    }
+
+    private void useDatabaseWithSharedAddress() {
+        database = new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "family@gmail.com"), new User("Janina", "family@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11)),
+                        new Signup("Janina", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 17))),
+                Collections.emptyList());
+    }
+
+    private NotifierSender newNotifierSender() {
+        NotifierSender notifierSender = new NotifierSender((emailAddress, title, text) -> {
+            if (emailAddress.equals(failingAddress)) {
+                throw new IllegalStateException("Relay unavailable");
+            }
+            sentMails.add(emailAddress);
+        }, database, dateProvider, new UserMessageProvider(), email -> true);
+        notifierSender.setSentLog(sentLog);
+        return notifierSender;
+    }
+}
@@ -0,0 +1,106 @@
+package pl.javastart.mockitomailing;
+
+import org.junit.Before;
+import org.junit.Test;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotifierSenderMemoryTest {
+
+    private static final int SIGNUPS = 5_000_000;
+    private static final int USERS = 1_000_000;
+    private static final int ACCEPTABLE_EVERY = 100_000;
+    private static final int GC_EVERY = 1_000_000;
+    private static final long MAX_HEAP_GROWTH = 32L * 1024 * 1024;
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+    LocalDate accessFrom = today.minusMonths(2);
+    LocalDate acceptableAccessTo = today.plusDays(1);
+    LocalDate inappropriateAccessTo = today.plusDays(200);
+
+    List<String> recipients;
+    NotifierSender notifierSender;
+    long peakHeapGrowth;
+    long baselineHeap;
+
+    @Before
+    public void init() {
+        recipients = new ArrayList<>();
+        DateProvider dateProvider = mock(DateProvider.class);
+        when(dateProvider.getCurrentDate()).thenReturn(today);
+
+        notifierSender = new NotifierSender((emailAddress, title, text) -> recipients.add(emailAddress),
+                new SyntheticDatabase(), dateProvider, new UserMessageProvider(), email -> true);
+    }
+
+    @Test
+    public void shouldProcessMillionsOfSignupsInBoundedMemory() {
+        baselineHeap = usedHeapAfterGc();
+
+        notifierSender.prepareAndSendMailsInBoundedMemory();
+
+        assertThat(recipients.size(), is(USERS / ACCEPTABLE_EVERY));
+        assertThat(peakHeapGrowth, is(lessThan(MAX_HEAP_GROWTH)));
+    }
+
+    private long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private void sampleHeap() {
+        peakHeapGrowth = Math.max(peakHeapGrowth, usedHeapAfterGc() - baselineHeap);
+    }
+
+    private class SyntheticDatabase implements Database {
+
+        @Override
+        public List<User> getAllUsers() {
+            throw new UnsupportedOperationException("Users must be streamed");
+        }
+
+        @Override
+        public List<Signup> getAllSignups() {
+            throw new UnsupportedOperationException("Signups must be streamed");
+        }
+
+        @Override
+        public List<Course> getAllCourses() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Stream<User> streamAllUsers() {
+            return IntStream.range(0, USERS)
+                    .mapToObj(i -> new User("user" + i, "user" + i + "@gmail.com"));
+        }
+
+        @Override
+        public Stream<Signup> streamAllSignups() {
+            return IntStream.range(0, SIGNUPS)
+                    .peek(i -> {
+                        if (i % GC_EVERY == GC_EVERY - 1) {
+                            sampleHeap();
+                        }
+                    })
+                    .mapToObj(i -> new Signup("user" + i % USERS, "Kurs Spring", accessFrom,
+                            i % ACCEPTABLE_EVERY == 0 ? acceptableAccessTo : inappropriateAccessTo));
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package pl.javastart.mockitomailing;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import pl.javastart.mockitomailing.database.ColumnarDatabase;
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.database.SnapshotDatabase;
+import pl.javastart.mockitomailing.dispatch.ConcurrentMailDispatcher;
+import pl.javastart.mockitomailing.dispatch.MailSendResult;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.DryRunPlan;
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+import pl.javastart.mockitomailing.model.PlannedMail;
+import pl.javastart.mockitomailing.model.SendPlan;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.ByteBufferPool;
+import pl.javastart.mockitomailing.util.DateProvider;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(Parameterized.class)
+public class NotifierSenderModesTest {
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> databases() {
+        return Arrays.asList(
+                new Object[]{"in-memory", (DatabaseFactory) InMemoryDatabase::new},
+                new Object[]{"columnar", (DatabaseFactory) ColumnarDatabase::new},
+                new Object[]{"snapshot", (DatabaseFactory) NotifierSenderModesTest::snapshotOf});
+    }
+
+    private static Database snapshotOf(Collection<User> users, Collection<Signup> signups, Collection<Course> courses) {
+        try {
+            Path file = Files.createTempFile("notifier-snapshot", ".bin");
+            file.toFile().deleteOnExit();
+            SnapshotDatabase.write(new InMemoryDatabase(users, signups, courses), file);
+            return SnapshotDatabase.open(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Parameterized.Parameter
+    public String databaseName;
+
+    @Parameterized.Parameter(1)
+    public DatabaseFactory databaseFactory;
+
+    DateProvider dateProvider;
+    Database database;
+    List<String> sentMails;
+    NotifierSender notifierSender;
+
+    @Before
+    public void init() {
+        dateProvider = mock(DateProvider.class);
+        sentMails = new ArrayList<>();
+
+        Random random = new Random(42);
+        LocalDate firstAccessTo = LocalDate.of(2019, 12, 1);
+        List<User> users = new ArrayList<>();
+        List<Signup> signups = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            users.add(new User("user" + i, "user" + i + "@gmail.com"));
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                signups.add(new Signup("user" + i, "Kurs " + j, LocalDate.of(2017, 8, 10),
+                        firstAccessTo.plusDays(random.nextInt(300))));
+            }
+        }
+        database = databaseFactory.create(users, signups, Collections.emptyList());
+
+        notifierSender = new NotifierSender((emailAddress, title, text) -> sentMails.add(emailAddress + "\n" + text),
+                database, dateProvider, new UserMessageProvider(), email -> true);
+    }
+
+    @Test
+    public void shouldSendSameMailsAsFullScanForEveryDayInEveryMode() {
+        for (LocalDate today = LocalDate.of(2020, 1, 1); today.isBefore(LocalDate.of(2020, 4, 1)); today = today.plusDays(1)) {
+            when(dateProvider.getCurrentDate()).thenReturn(today);
+
+            notifierSender.prepareAndSendMails();
+            List<String> fullScanMails = new ArrayList<>(sentMails);
+            sentMails.clear();
+
+            notifierSender.prepareAndSendMailsUsingDateIndex();
+            assertThat(sentMails, is(fullScanMails));
+            sentMails.clear();
+
+            notifierSender.prepareAndSendMailsFromCompactSignups();
+            assertThat(sentMails, is(fullScanMails));
+            sentMails.clear();
+
+            notifierSender.prepareAndSendMailsThroughPipeline();
+            assertThat(sentMails, is(fullScanMails));
+            sentMails.clear();
+        }
+    }
+
+    @Test
+    public void shouldPlanDryRunOfExactlyTheMailsFullScanSends() {
+        EmailAddressChecker checker = email -> !email.startsWith("user1");
+        NotifierSender checkingNotifierSender = new NotifierSender(
+                (emailAddress, title, text) -> sentMails.add(emailAddress + "\n" + text),
+                database, dateProvider, new UserMessageProvider(), checker);
+        MailSystem dryRunMailSystem = mock(MailSystem.class);
+        NotifierSender dryRunNotifierSender = new NotifierSender(dryRunMailSystem, database, dateProvider,
+                new UserMessageProvider(), checker);
+        long[] plannedMailsByThreshold = new long[NotificationThreshold.values().length];
+
+        for (LocalDate today = LocalDate.of(2020, 1, 1); today.isBefore(LocalDate.of(2020, 4, 1)); today = today.plusDays(1)) {
+            when(dateProvider.getCurrentDate()).thenReturn(today);
+
+            checkingNotifierSender.prepareAndSendMails();
+            DryRunPlan plan = dryRunNotifierSender.dryRun();
+            List<PlannedMail> uncheckedMails = notifierSender.planMails(today, today).get(0).getMails();
+
+            List<String> sentEmails = new ArrayList<>();
+            long sentBytes = 0;
+            for (String mail : sentMails) {
+                sentEmails.add(mail.substring(0, mail.indexOf('\n')));
+                sentBytes += mail.substring(mail.indexOf('\n') + 1).getBytes(StandardCharsets.UTF_8).length;
+            }
+            List<String> plannedEmails = plan.stream()
+                    .map(mail -> mail.getUser().getEmail())
+                    .collect(Collectors.toList());
+            assertThat(plannedEmails, is(sentEmails));
+            assertThat(plan.getTotalMessageBytes(), is(sentBytes));
+
+            List<String> rejectedEmails = new ArrayList<>();
+            long[] expectedMailsByThreshold = new long[NotificationThreshold.values().length];
+            for (PlannedMail mail : uncheckedMails) {
+                if (checker.checkmail(mail.getMail().getEmailAddress())) {
+                    expectedMailsByThreshold[mail.getThreshold().ordinal()]++;
+                } else {
+                    rejectedEmails.add(mail.getMail().getEmailAddress());
+                }
+            }
+            assertThat(plan.getRejectedEmails(), is(rejectedEmails));
+            for (NotificationThreshold threshold : NotificationThreshold.values()) {
+                assertThat(plan.getMailCount(threshold), is(expectedMailsByThreshold[threshold.ordinal()]));
+                plannedMailsByThreshold[threshold.ordinal()] += plan.getMailCount(threshold);
+            }
+            sentMails.clear();
+        }
+
+        verify(dryRunMailSystem, never()).sendEmail(any(), any(), any());
+        for (long plannedMails : plannedMailsByThreshold) {
+            assertThat(plannedMails > 0, is(true));
+        }
+    }
+
+    @Test
+    public void shouldSendSameMailsFromWeeklyPlansAsFromDailyScans() {
+        Database spiedDatabase = spy(database);
+        NotifierSender planningNotifierSender = new NotifierSender(
+                (emailAddress, title, text) -> sentMails.add(emailAddress + "\n" + text),
+                spiedDatabase, dateProvider, new UserMessageProvider(), email -> true);
+
+        for (LocalDate weekStart = LocalDate.of(2020, 1, 1); weekStart.isBefore(LocalDate.of(2020, 4, 1)); weekStart = weekStart.plusWeeks(1)) {
+            List<SendPlan> plans = planningNotifierSender.planMails(weekStart, weekStart.plusDays(6));
+            assertThat(plans.size(), is(7));
+
+            for (SendPlan plan : plans) {
+                when(dateProvider.getCurrentDate()).thenReturn(plan.getDay());
+
+                notifierSender.prepareAndSendMails();
+                List<String> fullScanMails = new ArrayList<>(sentMails);
+                sentMails.clear();
+
+                planningNotifierSender.sendPlannedMails(plan);
+                assertThat(sentMails, is(fullScanMails));
+                sentMails.clear();
+            }
+        }
+        verify(spiedDatabase, times(13)).getAllSignups();
+        verify(spiedDatabase, never()).getSignupsWithAccessToBetween(any(), any());
+        verify(spiedDatabase, never()).getSignupsOfUsers(any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRefuseToSendPlanOfAnotherDay() {
+        List<SendPlan> plans = notifierSender.planMails(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2));
+        when(dateProvider.getCurrentDate()).thenReturn(LocalDate.of(2020, 1, 1));
+
+        notifierSender.sendPlannedMails(plans.get(1));
+    }
+
+    @Test
+    public void shouldSendSameMailsWhenRenderingIntoPooledBuffers() {
+        ByteBufferPool messageBufferPool = new ByteBufferPool(256, 4, true);
+        List<String> pooledMails = new ArrayList<>();
+        NotifierSender pooledNotifierSender = new NotifierSender(new MailSystem() {
+            @Override
+            public void sendEmail(String emailAddress, String title, String text) {
+                throw new AssertionError("Expected encoded message for " + emailAddress);
+            }
+
+            @Override
+            public void sendEncodedEmail(String emailAddress, String title, ByteBuffer utf8Text) {
+                pooledMails.add(emailAddress + "\n" + StandardCharsets.UTF_8.decode(utf8Text));
+            }
+        }, database, dateProvider, new UserMessageProvider(), email -> true);
+        pooledNotifierSender.setMessageBufferPool(messageBufferPool);
+
+        for (LocalDate today = LocalDate.of(2020, 1, 1); today.isBefore(LocalDate.of(2020, 4, 1)); today = today.plusDays(1)) {
+            when(dateProvider.getCurrentDate()).thenReturn(today);
+
+            notifierSender.prepareAndSendMails();
+            pooledNotifierSender.prepareAndSendMails();
+            assertThat(pooledMails, is(sentMails));
+            sentMails.clear();
+            pooledMails.clear();
+        }
+        assertThat(messageBufferPool.getAllocations(), is(1L));
+    }
+
+    @Test
+    public void shouldKeepBodyOfFailedMailIntactAfterItsBufferIsReused() {
+        ByteBufferPool messageBufferPool = new ByteBufferPool(256, 4, true);
+        Database smallDatabase = databaseFactory.create(
+                Arrays.asList(new User("Jan", "Jan@gmail.com"), new User("Marian", "Marian@gmail.com"),
+                        new User("Kamil", "Kamil@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Kurs Spring", LocalDate.of(2019, 8, 10), LocalDate.of(2020, 1, 2)),
+                        new Signup("Marian", "Android", LocalDate.of(2019, 8, 10), LocalDate.of(2020, 1, 2)),
+                        new Signup("Kamil", "Hibernate", LocalDate.of(2019, 8, 10), LocalDate.of(2020, 1, 2))),
+                Collections.emptyList());
+        List<String> failedBodies = new ArrayList<>();
+        NotifierSender pooledNotifierSender = new NotifierSender(new MailSystem() {
+            @Override
+            public void sendEmail(String emailAddress, String title, String text) {
+                throw new AssertionError("Expected encoded message for " + emailAddress);
+            }
+
+            @Override
+            public void sendEncodedEmail(String emailAddress, String title, ByteBuffer utf8Text) {
+                if (emailAddress.equals("Jan@gmail.com")) {
+                    failedBodies.add(StandardCharsets.UTF_8.decode(utf8Text).toString());
+                    throw new IllegalStateException("Mailbox unavailable");
+                }
+            }
+        }, smallDatabase, dateProvider, new UserMessageProvider(), email -> true);
+        pooledNotifierSender.setMessageBufferPool(messageBufferPool);
+        pooledNotifierSender.setMailDispatcherFactory(mailSystem -> new ConcurrentMailDispatcher(mailSystem, 1));
+        when(dateProvider.getCurrentDate()).thenReturn(LocalDate.of(2020, 1, 1));
+
+        List<MailSendResult> results = pooledNotifierSender.prepareAndSendMails();
+
+        assertThat(messageBufferPool.getAllocations(), is(lessThan((long) results.size())));
+        MailSendResult failed = results.get(0);
+        assertThat(failed.isSuccess(), is(false));
+        assertThat(failed.getMail().getText(), is(failedBodies.get(0)));
+        assertThat(StandardCharsets.UTF_8.decode(failed.getMail().getEncodedText()).toString(), is(failedBodies.get(0)));
+        assertThat(failedBodies.get(0).contains("Jan"), is(true));
+    }
+
+    @Test
+    public void shouldReleasePooledBufferOfEachMailToSharedAddress() {
+        ByteBufferPool messageBufferPool = new ByteBufferPool(256, 4, true);
+        Database sharedAddressDatabase = databaseFactory.create(
+                Arrays.asList(new User("Jan", "family@gmail.com"), new User("Janina", "family@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Kurs Spring", LocalDate.of(2019, 8, 10), LocalDate.of(2020, 1, 2)),
+                        new Signup("Janina", "Android", LocalDate.of(2019, 8, 10), LocalDate.of(2020, 1, 2))),
+                Collections.emptyList());
+        NotifierSender pooledNotifierSender = new NotifierSender(mock(MailSystem.class), sharedAddressDatabase,
+                dateProvider, new UserMessageProvider(), email -> true);
+        pooledNotifierSender.setMessageBufferPool(messageBufferPool);
+        pooledNotifierSender.setMailDispatcher((mails, resultListener) -> mails
+                .collect(Collectors.toList())
+                .forEach(mail -> resultListener.accept(MailSendResult.success(mail))));
+        when(dateProvider.getCurrentDate()).thenReturn(LocalDate.of(2020, 1, 1));
+
+        assertThat(pooledNotifierSender.prepareAndSendMails().size(), is(2));
+        messageBufferPool.acquire();
+        messageBufferPool.acquire();
+        assertThat(messageBufferPool.getAllocations(), is(2L));
+    }
+
+    @Test
+    public void shouldGroupSignupsInParallelWithSameResult() {
+        for (LocalDate today = LocalDate.of(2020, 1, 1); today.isBefore(LocalDate.of(2020, 4, 1)); today = today.plusDays(1)) {
+            when(dateProvider.getCurrentDate()).thenReturn(today);
+
+            notifierSender.setParallelGroupingThreshold(Integer.MAX_VALUE);
+            notifierSender.prepareAndSendMails();
+            List<String> sequentialMails = new ArrayList<>(sentMails);
+            sentMails.clear();
+
+            notifierSender.setParallelGroupingThreshold(1);
+            notifierSender.prepareAndSendMails();
+            assertThat(sentMails, is(sequentialMails));
+            sentMails.clear();
+        }
+    }
+
+    @Test
+    public void shouldLookUpUsersByNamesInTableOrder() {
+        List<User> users = database.getUsersByNames(Arrays.asList("user42", "nobody", "user7"));
+
+        assertThat(users.size(), is(2));
+        assertThat(users.get(0).getName(), is("user7"));
+        assertThat(users.get(1).getName(), is("user42"));
+    }
+
+    @Test
+    public void shouldReturnSignupsWithinInclusiveRange() {
+        List<Signup> signups = database.getSignupsWithAccessToBetween(LocalDate.of(2020, 2, 28), LocalDate.of(2020, 3, 1));
+
+        assertThat(signups.isEmpty(), is(false));
+        signups.forEach(signup -> {
+            assertThat(signup.getAccessTo().isBefore(LocalDate.of(2020, 2, 28)), is(false));
+            assertThat(signup.getAccessTo().isAfter(LocalDate.of(2020, 3, 1)), is(false));
+        });
+    }
+
+    interface DatabaseFactory {
+
+        Database create(Collection<User> users, Collection<Signup> signups, Collection<Course> courses);
+    }
+}
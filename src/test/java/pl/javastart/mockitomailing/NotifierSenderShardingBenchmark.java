@@ -0,0 +1,72 @@
+package pl.javastart.mockitomailing;
+
+import org.openjdk.jmh.annotations.*;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+import pl.javastart.mockitomailing.util.Shard;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class NotifierSenderShardingBenchmark {
+
+    @Param({"1", "4"})
+    int shards;
+
+    @Param({"2"})
+    long sendLatencyMillis;
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+    List<Callable<Object>> shardRuns;
+    ExecutorService workers;
+
+    @Setup
+    public void setUp() {
+        Database database = new SyntheticData(2000, 2, today, 7).toDatabase();
+        DateProvider dateProvider = new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        };
+        shardRuns = new ArrayList<>();
+        for (int shardIndex = 0; shardIndex < shards; shardIndex++) {
+            NotifierSender notifierSender = new NotifierSender((emailAddress, title, text) -> {
+                try {
+                    Thread.sleep(sendLatencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, database, dateProvider, new UserMessageProvider(), email -> true);
+            notifierSender.setShard(new Shard(shardIndex, shards));
+            shardRuns.add(notifierSender::prepareAndSendMails);
+        }
+        workers = Executors.newFixedThreadPool(shards);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workers.shutdown();
+    }
+
+    @Benchmark
+    public int sendAcrossShards() throws Exception {
+        int sent = 0;
+        for (Future<Object> shardRun : workers.invokeAll(shardRuns)) {
+            sent += ((List<?>) shardRun.get()).size();
+        }
+        return sent;
+    }
+}
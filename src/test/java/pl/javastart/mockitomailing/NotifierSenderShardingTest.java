@@ -0,0 +1,74 @@
+package pl.javastart.mockitomailing;
+
+import org.junit.Before;
+import org.junit.Test;
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+import pl.javastart.mockitomailing.util.Shard;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class NotifierSenderShardingTest {
+
+    private static final int SHARDS = 4;
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+    InMemoryDatabase database;
+    DateProvider dateProvider;
+    List<String> sentMails;
+
+    @Before
+    public void init() {
+        database = new SyntheticData(2000, 2, today, 7).toDatabase();
+        dateProvider = new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        };
+        sentMails = new ArrayList<>();
+    }
+
+    @Test
+    public void shouldSendExactlyTheMailsOfSingleRunAcrossShards() {
+        newNotifierSender(Shard.ALL).prepareAndSendMails();
+        List<String> singleRunMails = sorted(sentMails);
+        sentMails.clear();
+
+        Set<String> shardedMails = new HashSet<>();
+        for (int shardIndex = 0; shardIndex < SHARDS; shardIndex++) {
+            newNotifierSender(new Shard(shardIndex, SHARDS)).prepareAndSendMails();
+            assertThat(sentMails, is(not(empty())));
+            for (String mail : sentMails) {
+                assertThat("sent by more than one shard: " + mail, shardedMails.add(mail), is(true));
+            }
+            sentMails.clear();
+        }
+
+        assertThat(singleRunMails.size(), is(greaterThan(100)));
+        assertThat(new HashSet<>(singleRunMails).size(), is(singleRunMails.size()));
+        assertThat(sorted(shardedMails), is(singleRunMails));
+    }
+
+    private NotifierSender newNotifierSender(Shard shard) {
+        NotifierSender notifierSender = new NotifierSender(
+                (emailAddress, title, text) -> sentMails.add(emailAddress + "\n" + text),
+                database, dateProvider, new UserMessageProvider(), email -> true);
+        notifierSender.setShard(shard);
+        return notifierSender;
+    }
+
+    private List<String> sorted(Collection<String> mails) {
+        List<String> sortedMails = new ArrayList<>(mails);
+        Collections.sort(sortedMails);
+        return sortedMails;
+    }
+}
@@ -6,6 +6,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import pl.javastart.mockitomailing.dispatch.ConcurrentMailDispatcher;
+import pl.javastart.mockitomailing.dispatch.MailSendResult;
 import pl.javastart.mockitomailing.model.Signup;
 import pl.javastart.mockitomailing.model.User;
 import pl.javastart.mockitomailing.model.UserMessageProvider;
@@ -13,10 +15,12 @@ import pl.javastart.mockitomailing.util.DateProvider;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -65,6 +69,7 @@ public class NotifierSenderTest {
         when(messageProvider.prepareTitle()).thenReturn("Title");
 
         when(emailAddressChecker.checkmail(anyString())).thenReturn(true);
+        when(emailAddressChecker.checkAll(anyCollection())).thenCallRealMethod();
 
         notifierSender = new NotifierSender(mailSystem, database, dateProvider, messageProvider, emailAddressChecker);
     }
@@ -169,6 +174,45 @@ public class NotifierSenderTest {
         verifyZeroInteractions(mailSystem);
     }
 
+    @Test
+    public void shouldValidateOnlyRecipientsEmailsInOneBatch() {
+        Signup appropriateSignupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 10, 11));
+        Signup appropriateSignupTwo = new Signup("Marian", "Java Podstawy", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 11, 10));
+        signups.add(appropriateSignupOne);
+        signups.add(appropriateSignupTwo);
+
+        ArgumentCaptor<Collection<String>> emailsCaptor = ArgumentCaptor.forClass(Collection.class);
+
+        notifierSender.prepareAndSendMails();
+        verify(emailAddressChecker, times(1)).checkAll(emailsCaptor.capture());
+        assertThat(emailsCaptor.getValue(), hasItems("Jan@gmail.com", "Marian@gmail.com"));
+        assertThat(emailsCaptor.getValue(), not(hasItems("Kamil@onet.pl")));
+    }
+
+    @Test
+    public void shouldValidatePipelineRecipientsEmailsInOneBatchBeforeRendering() {
+        Signup appropriateSignupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 10, 11));
+        Signup appropriateSignupTwo = new Signup("Marian", "Java Podstawy", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 11, 10));
+        signups.add(appropriateSignupOne);
+        signups.add(appropriateSignupTwo);
+        when(database.streamAllSignups()).thenCallRealMethod();
+        when(database.getUsersByNames(anyCollection())).thenCallRealMethod();
+        when(emailAddressChecker.checkmail("Marian@gmail.com")).thenReturn(false);
+
+        ArgumentCaptor<Collection<String>> emailsCaptor = ArgumentCaptor.forClass(Collection.class);
+
+        notifierSender.prepareAndSendMailsThroughPipeline();
+        verify(emailAddressChecker, times(1)).checkAll(emailsCaptor.capture());
+        assertThat(emailsCaptor.getValue(), hasItems("Jan@gmail.com", "Marian@gmail.com"));
+        assertThat(emailsCaptor.getValue(), not(hasItems("Kamil@onet.pl")));
+        verify(messageProvider, times(1)).prepareMessage(ArgumentMatchers.isA(User.class), any(), any(), any());
+        verify(mailSystem, times(1)).sendEmail(eq("Jan@gmail.com"), anyString(), anyString());
+    }
+
     @Test
     public void shouldSendOnlyOneEmailToUserWithMoreThanOneApplicableSignups() {
         Signup appropriateSignupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
@@ -185,6 +229,27 @@ public class NotifierSenderTest {
         assertThat(emailCaptor.getAllValues().size(), is(not(2)));
     }
 
+    @Test
+    public void shouldSendOnlyOneEmailToUserWhenDispatchingConcurrently() {
+        Signup appropriateSignupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 10, 11));
+        Signup appropriateSignupTwo = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 11, 10));
+        Signup appropriateSignupThree = new Signup("Marian", "Java Podstawy", LocalDate.of(2017, 8, 10),
+                LocalDate.of(2017, 10, 17));
+        signups.add(appropriateSignupOne);
+        signups.add(appropriateSignupTwo);
+        signups.add(appropriateSignupThree);
+
+        notifierSender.setMailDispatcher(new ConcurrentMailDispatcher(mailSystem, 4));
+        List<MailSendResult> results = notifierSender.prepareAndSendMails();
+
+        verify(mailSystem, times(1)).sendEmail(eq("Jan@gmail.com"), anyString(), anyString());
+        verify(mailSystem, times(1)).sendEmail(eq("Marian@gmail.com"), anyString(), anyString());
+        verifyNoMoreInteractions(mailSystem);
+        assertThat(results.size(), is(2));
+    }
+
     @Test
     public void shouldInvokePrepareMessageMethodWithAppropriateSignupArgAndSignupListArg() {
         Signup appropriateSignupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10),
@@ -0,0 +1,54 @@
+package pl.javastart.mockitomailing;
+
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class SyntheticData {
+
+    private static final String[] COURSES = {"Kurs Spring", "Java Podstawy", "Android", "Hibernate", "JavaFX",
+            "Testowanie", "Wzorce projektowe", "Bazy danych"};
+    private static final int[] ACCESS_MONTHS = {1, 3, 6, 12, 24};
+
+    private final List<User> users = new ArrayList<>();
+    private final List<Signup> signups = new ArrayList<>();
+    private final List<Course> courses = new ArrayList<>();
+
+    public SyntheticData(int userCount, int signupsPerUser, LocalDate today, long seed) {
+        Random random = new Random(seed);
+        for (String course : COURSES) {
+            courses.add(new Course(course));
+        }
+        for (int i = 0; i < userCount; i++) {
+            String name = "user" + i;
+            users.add(new User(name, name + "@gmail.com"));
+            for (int j = 0; j < signupsPerUser; j++) {
+                LocalDate accessFrom = today.minusDays(random.nextInt(365));
+                LocalDate accessTo = accessFrom.plusMonths(ACCESS_MONTHS[random.nextInt(ACCESS_MONTHS.length)]);
+                signups.add(new Signup(name, COURSES[random.nextInt(COURSES.length)], accessFrom, accessTo));
+            }
+        }
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public List<Signup> getSignups() {
+        return signups;
+    }
+
+    public List<Course> getCourses() {
+        return courses;
+    }
+
+    public InMemoryDatabase toDatabase() {
+        return new InMemoryDatabase(users, signups, courses);
+    }
+}
@@ -0,0 +1,136 @@
+package pl.javastart.mockitomailing.batch;
+
+import pl.javastart.mockitomailing.SyntheticData;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class NotifierBatchStartupBenchmark {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 15);
+    private static final String[] MODES = {"compact", "all", "pipeline"};
+    private static final String C1_ONLY = "-XX:TieredStopAtLevel=1";
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int coldRuns = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int warmRuns = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+        Path work = Files.createTempDirectory("notifier-batch");
+        Path data = work.resolve("data");
+        TsvDatabaseFiles.write(new SyntheticData(users, 2, TODAY, 42).toDatabase(), data);
+        Path jar = packageBatchJar(work.resolve("notifier-batch.jar"));
+        System.out.println("java " + System.getProperty("java.version") + ", " + users + " users, 2 signups each, "
+                + "median of " + coldRuns + " launches (wall clock, JVM start to exit)");
+
+        for (String mode : MODES) {
+            List<String> batchArgs = Arrays.asList("--data", data.toString(), "--date", TODAY.toString(),
+                    "--mode", mode, "--dry-run");
+            report(mode, "cold, -Xshare:off", launches(work, jar, batchArgs, coldRuns, "-Xshare:off"));
+            report(mode, "cold, default CDS", launches(work, jar, batchArgs, coldRuns));
+            report(mode, "cold, C1 only", launches(work, jar, batchArgs, coldRuns, C1_ONLY));
+            if (javaFeatureVersion() >= 13) {
+                Path archive = work.resolve("notifier-batch-" + mode + ".jsa");
+                launch(work, jar, batchArgs, "-XX:ArchiveClassesAtExit=" + archive);
+                report(mode, "cold, AppCDS", launches(work, jar, batchArgs, coldRuns,
+                        "-XX:SharedArchiveFile=" + archive));
+                report(mode, "cold, AppCDS + C1 only", launches(work, jar, batchArgs, coldRuns,
+                        "-XX:SharedArchiveFile=" + archive, C1_ONLY));
+            } else {
+                System.out.println(String.format("%-9s %-24s skipped, dynamic AppCDS archives need JDK 13+", mode,
+                        "cold, AppCDS"));
+            }
+
+            List<String> repeatedArgs = new ArrayList<>(batchArgs);
+            repeatedArgs.add("--repeat");
+            repeatedArgs.add(Integer.toString(warmRuns));
+            NotifierBatch batch = NotifierBatch.fromArguments(repeatedArgs.toArray(new String[0]));
+            batch.run(new PrintStream(new OutputStream() {
+                @Override
+                public void write(int b) {
+                }
+            }));
+            List<Long> runNanos = batch.getRunNanos();
+            report(mode, "in-process, first run", Collections.singletonList(runNanos.get(0)));
+            report(mode, "in-process, warm", runNanos.subList(runNanos.size() / 2, runNanos.size()));
+        }
+    }
+
+    private static List<Long> launches(Path work, Path jar, List<String> batchArgs, int runs, String... jvmArgs)
+            throws IOException, InterruptedException {
+        List<Long> nanos = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            nanos.add(launch(work, jar, batchArgs, jvmArgs));
+        }
+        return nanos;
+    }
+
+    private static long launch(Path work, Path jar, List<String> batchArgs, String... jvmArgs)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(jvmArgs));
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add(NotifierBatch.class.getName());
+        command.addAll(batchArgs);
+
+        File log = work.resolve("launch.log").toFile();
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        int exitCode = process.waitFor();
+        long nanos = System.nanoTime() - start;
+        if (exitCode != 0) {
+            throw new IllegalStateException("Batch exited with " + exitCode + ":\n"
+                    + new String(Files.readAllBytes(log.toPath())));
+        }
+        return nanos;
+    }
+
+    private static void report(String mode, String configuration, List<Long> nanos) {
+        List<Long> sorted = new ArrayList<>(nanos);
+        Collections.sort(sorted);
+        System.out.println(String.format("%-9s %-24s %8.1f ms", mode, configuration,
+                sorted.get(sorted.size() / 2) / 1e6));
+    }
+
+    private static Path packageBatchJar(Path jar) throws IOException, URISyntaxException {
+        Path classes = Paths.get(NotifierBatch.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        if (!Files.isDirectory(classes)) {
+            return classes;
+        }
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest);
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                Files.copy(file, out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static int javaFeatureVersion() {
+        String version = System.getProperty("java.specification.version");
+        return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+    }
+}
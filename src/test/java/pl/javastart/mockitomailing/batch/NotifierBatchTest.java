@@ -0,0 +1,175 @@
+package pl.javastart.mockitomailing.batch;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.javastart.mockitomailing.database.InMemoryDatabase;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+public class NotifierBatchTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldRoundTripDatabaseThroughTsvFiles() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        InMemoryDatabase database = sampleDatabase();
+
+        TsvDatabaseFiles.write(database, directory);
+        InMemoryDatabase read = TsvDatabaseFiles.read(directory);
+
+        assertEquals(3, read.getAllUsers().size());
+        assertEquals("Zażółć", read.getAllUsers().get(2).getName());
+        assertEquals("Marian@gmail.com", read.getAllUsers().get(1).getEmail());
+        assertEquals(database.getAllSignups().toString(), read.getAllSignups().toString());
+        assertEquals("Android", read.getAllCourses().get(1).getTitle());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectRowWithMissingColumn() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Files.write(directory.resolve(TsvDatabaseFiles.SIGNUPS_FILE),
+                "Jan\tAndroid\t2017-08-10\n".getBytes(StandardCharsets.UTF_8));
+
+        TsvDatabaseFiles.read(directory);
+    }
+
+    @Test(expected = DateTimeException.class)
+    public void shouldRejectMalformedDate() {
+        TsvDatabaseFiles.parseDate("2017-8-10");
+    }
+
+    @Test
+    public void shouldWriteMailsToOutbox() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Path outbox = temporaryFolder.getRoot().toPath().resolve("outbox.txt");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        int failed = NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10",
+                "--outbox", outbox.toString(), "--mode", "date-index").run(new PrintStream(log, true));
+
+        String mails = new String(Files.readAllBytes(outbox), StandardCharsets.UTF_8);
+        assertEquals(0, failed);
+        assertThat(mails, containsString("To: Jan@gmail.com\n"));
+        assertThat(mails, containsString("\n\nCześć Jan,\nza 1 dzień kończy Ci się dostęp do kursu, Kurs Spring."));
+        assertThat(mails, not(containsString("Marian@gmail.com")));
+        assertThat(log.toString(), containsString("1 sent, 0 failed"));
+    }
+
+    @Test
+    public void shouldReplayRunFromSnapshotOfTsvData() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Path snapshot = temporaryFolder.getRoot().toPath().resolve("snapshot.bin");
+        Path tsvOutbox = temporaryFolder.getRoot().toPath().resolve("tsv-outbox.txt");
+        Path snapshotOutbox = temporaryFolder.getRoot().toPath().resolve("snapshot-outbox.txt");
+        PrintStream log = new PrintStream(new ByteArrayOutputStream());
+
+        NotifierBatch.fromArguments("--data", directory.toString(), "--write-snapshot", snapshot.toString()).run(log);
+        NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10",
+                "--outbox", tsvOutbox.toString()).run(log);
+        NotifierBatch.fromArguments("--data", snapshot.toString(), "--date", "2017-10-10",
+                "--outbox", snapshotOutbox.toString()).run(log);
+
+        assertThat(new String(Files.readAllBytes(tsvOutbox), StandardCharsets.UTF_8), containsString("Cześć Jan,"));
+        assertEquals(new String(Files.readAllBytes(tsvOutbox), StandardCharsets.UTF_8),
+                new String(Files.readAllBytes(snapshotOutbox), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldPrintPlanWithoutWritingOutbox() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Path outbox = temporaryFolder.getRoot().toPath().resolve("outbox.txt");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10", "--plan",
+                "--outbox", outbox.toString()).run(new PrintStream(log, true));
+
+        assertThat(log.toString(), containsString("mails=1, ONE_DAY=1, SEVEN_DAYS=0"));
+        assertEquals(false, Files.exists(outbox));
+    }
+
+    @Test
+    public void shouldNotRecordDryRunInSentLog() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Path sentLog = temporaryFolder.getRoot().toPath().resolve("sent.log");
+        Path outbox = temporaryFolder.getRoot().toPath().resolve("outbox.txt");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10", "--dry-run",
+                "--sent-log", sentLog.toString()).run(new PrintStream(new ByteArrayOutputStream()));
+        int failed = NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10",
+                "--outbox", outbox.toString(), "--sent-log", sentLog.toString()).run(new PrintStream(log, true));
+
+        assertEquals(0, failed);
+        assertThat(log.toString(), containsString("1 sent, 0 failed"));
+        assertThat(new String(Files.readAllBytes(outbox), StandardCharsets.UTF_8), containsString("To: Jan@gmail.com\n"));
+    }
+
+    @Test
+    public void shouldSendPlanSavedByEarlierRun() throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(sampleDatabase(), directory);
+        Path emptyDirectory = temporaryFolder.newFolder().toPath();
+        TsvDatabaseFiles.write(new InMemoryDatabase(Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList()), emptyDirectory);
+        Path planDirectory = temporaryFolder.getRoot().toPath().resolve("plans");
+        Path outbox = temporaryFolder.getRoot().toPath().resolve("outbox.txt");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+
+        NotifierBatch.fromArguments("--data", directory.toString(), "--date", "2017-10-10", "--plan-days", "3",
+                "--plan-dir", planDirectory.toString()).run(new PrintStream(new ByteArrayOutputStream()));
+        int failed = NotifierBatch.fromArguments("--data", emptyDirectory.toString(), "--date", "2017-10-10",
+                "--plan-dir", planDirectory.toString(), "--outbox", outbox.toString()).run(new PrintStream(log, true));
+
+        assertEquals(true, Files.exists(SendPlanFiles.fileOf(planDirectory, LocalDate.of(2017, 10, 12))));
+        assertEquals(0, failed);
+        assertThat(log.toString(), containsString("1 sent, 0 failed"));
+        String mails = new String(Files.readAllBytes(outbox), StandardCharsets.UTF_8);
+        assertThat(mails, containsString("To: Jan@gmail.com\n"));
+        assertThat(mails, containsString("Cześć Jan,"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequirePlanDirectoryForPlanDays() {
+        NotifierBatch.fromArguments("--data", "data", "--plan-days", "3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireDataDirectory() {
+        NotifierBatch.fromArguments("--date", "2017-10-10");
+    }
+
+    private static InMemoryDatabase sampleDatabase() {
+        return new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com"), new User("Marian", "Marian@gmail.com"),
+                        new User("Zażółć", "zazolc@gmail.com")),
+                Arrays.asList(
+                        new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11)),
+                        new Signup("Marian", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2018, 8, 10))),
+                Arrays.asList(new Course("Kurs Spring"), new Course("Android")));
+    }
+}
@@ -0,0 +1,48 @@
+package pl.javastart.mockitomailing.database;
+
+import org.junit.Test;
+import pl.javastart.mockitomailing.model.CompactSignup;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ColumnarDatabaseTest {
+
+    @Test
+    public void shouldRejectSignupWithoutAccessToDate() {
+        try {
+            new ColumnarDatabase(Arrays.asList(new User("Jan", "Jan@gmail.com")),
+                    Arrays.asList(new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10), null)),
+                    Collections.emptyList());
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertThat(e.getMessage(), containsString("Missing accessTo date"));
+            assertThat(e.getMessage(), containsString("user='Jan'"));
+        }
+    }
+
+    @Test
+    public void shouldKeepSignupWithoutAccessFromDate() {
+        Signup signup = new Signup("Jan", "Kurs Spring", null, LocalDate.of(2017, 10, 11));
+        NameDictionary userNames = new NameDictionary();
+        NameDictionary courseNames = new NameDictionary();
+
+        ColumnarDatabase database = new ColumnarDatabase(Arrays.asList(new User("Jan", "Jan@gmail.com")),
+                Arrays.asList(signup), Collections.emptyList());
+        Signup compactSignup = CompactSignup.of(signup, userNames, courseNames).toSignup(userNames, courseNames);
+
+        assertThat(database.getAllSignups().toString(), is(Arrays.asList(signup).toString()));
+        assertThat(compactSignup.getAccessFrom(), is(nullValue()));
+        assertThat(compactSignup.getAccessTo(), is(LocalDate.of(2017, 10, 11)));
+    }
+}
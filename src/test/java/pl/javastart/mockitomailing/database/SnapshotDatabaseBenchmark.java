@@ -0,0 +1,77 @@
+package pl.javastart.mockitomailing.database;
+
+import org.openjdk.jmh.annotations.*;
+import pl.javastart.mockitomailing.Database;
+import pl.javastart.mockitomailing.SyntheticData;
+import pl.javastart.mockitomailing.batch.TsvDatabaseFiles;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SnapshotDatabaseBenchmark {
+
+    @Param({"1000000"})
+    int users;
+
+    Path directory;
+    Path snapshot;
+    ColumnarDatabase columnarDatabase;
+
+    @Setup
+    public void setUp() throws IOException {
+        SyntheticData data = new SyntheticData(users, 3, LocalDate.of(2024, 3, 15), 42);
+        columnarDatabase = new ColumnarDatabase(data.getUsers(), data.getSignups(), data.getCourses());
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        snapshot = directory.resolve("database.snapshot");
+        SnapshotDatabase.write(columnarDatabase, snapshot);
+        TsvDatabaseFiles.write(columnarDatabase, directory);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(snapshot);
+        Files.delete(directory.resolve(TsvDatabaseFiles.USERS_FILE));
+        Files.delete(directory.resolve(TsvDatabaseFiles.SIGNUPS_FILE));
+        Files.delete(directory.resolve(TsvDatabaseFiles.COURSES_FILE));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public int openSnapshot() throws IOException {
+        return SnapshotDatabase.open(snapshot).getSignupCount();
+    }
+
+    @Benchmark
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 2)
+    public int loadTsvFiles() throws IOException {
+        return TsvDatabaseFiles.read(directory).getAllSignups().size();
+    }
+
+    @Benchmark
+    public long scanCompactSignupsFromSnapshot() throws IOException {
+        return countCompactSignups(SnapshotDatabase.open(snapshot));
+    }
+
+    @Benchmark
+    public long scanCompactSignupsFromColumnar() {
+        return countCompactSignups(columnarDatabase);
+    }
+
+    private static long countCompactSignups(Database database) {
+        long[] accessToSum = new long[1];
+        database.forEachCompactSignup(new NameDictionary(), new NameDictionary(),
+                (userId, courseId, accessFrom, accessTo) -> accessToSum[0] += accessTo);
+        return accessToSum[0];
+    }
+}
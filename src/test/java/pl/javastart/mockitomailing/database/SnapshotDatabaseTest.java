@@ -0,0 +1,171 @@
+package pl.javastart.mockitomailing.database;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+import pl.javastart.mockitomailing.util.NameDictionary;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SnapshotDatabaseTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadBackEveryTableAndQuery() throws IOException {
+        InMemoryDatabase database = new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com"), new User("Zażółć", "gęślą@jaźń.pl"),
+                        new User("Jan", "other@gmail.com"), new User("", "")),
+                Arrays.asList(
+                        new Signup("Zażółć", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10)),
+                        new Signup("Ghost", "Hibernate", LocalDate.of(1969, 12, 31), LocalDate.of(2017, 10, 10)),
+                        new Signup("Jan", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11))),
+                Arrays.asList(new Course("Kurs Spring"), new Course("Android"), new Course("Kurs Spring")));
+        Path file = temporaryFolder.newFile().toPath();
+
+        SnapshotDatabase.write(database, file);
+        SnapshotDatabase snapshot = SnapshotDatabase.open(file);
+
+        assertEquals(describeUsers(database.getAllUsers()), describeUsers(snapshot.getAllUsers()));
+        assertEquals(database.getAllSignups().toString(), snapshot.getAllSignups().toString());
+        assertEquals(3, snapshot.getSignupCount());
+        assertEquals(Arrays.asList("Kurs Spring", "Android", "Kurs Spring"), describeCourses(snapshot.getAllCourses()));
+        assertEquals(describeUsers(database.getUsersByNames(Arrays.asList("Jan", "Ghost"))),
+                describeUsers(snapshot.getUsersByNames(Arrays.asList("Jan", "Ghost"))));
+        assertEquals(database.getSignupsOfUsers(Arrays.asList("Ghost", "Jan")).toString(),
+                snapshot.getSignupsOfUsers(Arrays.asList("Ghost", "Jan")).toString());
+        assertEquals(database.getSignupsWithAccessToBetween(LocalDate.of(2017, 10, 10), LocalDate.of(2017, 10, 11)).toString(),
+                snapshot.getSignupsWithAccessToBetween(LocalDate.of(2017, 10, 10), LocalDate.of(2017, 10, 11)).toString());
+    }
+
+    @Test
+    public void shouldTranslateSignupIdsIntoCallerDictionaries() throws IOException {
+        InMemoryDatabase database = new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com"), new User("Marian", "Marian@gmail.com")),
+                Arrays.asList(new Signup("Marian", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10))),
+                Arrays.asList(new Course("Kurs Spring"), new Course("Android")));
+        Path file = temporaryFolder.newFile().toPath();
+        SnapshotDatabase.write(database, file);
+        NameDictionary userNames = new NameDictionary();
+        NameDictionary courseNames = new NameDictionary();
+        userNames.idOf("Marian");
+
+        List<int[]> rows = new ArrayList<>();
+        SnapshotDatabase.open(file).forEachCompactSignup(userNames, courseNames,
+                (userId, courseId, accessFrom, accessTo) -> rows.add(new int[]{userId, courseId, accessFrom, accessTo}));
+
+        assertEquals(1, rows.size());
+        assertEquals("Marian", userNames.nameOf(rows.get(0)[0]));
+        assertEquals("Android", courseNames.nameOf(rows.get(0)[1]));
+        assertEquals(LocalDate.of(2017, 8, 10).toEpochDay(), rows.get(0)[2]);
+        assertEquals(LocalDate.of(2017, 11, 10).toEpochDay(), rows.get(0)[3]);
+    }
+
+    @Test
+    public void shouldReadBackSignupWithoutAccessFromDate() throws IOException {
+        InMemoryDatabase database = new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Android", null, LocalDate.of(2017, 10, 11))),
+                Arrays.asList(new Course("Android")));
+        Path file = temporaryFolder.newFile().toPath();
+
+        SnapshotDatabase.write(database, file);
+
+        assertEquals(database.getAllSignups().toString(), SnapshotDatabase.open(file).getAllSignups().toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectFileThatIsNotSnapshot() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        Files.write(file, "user\temail\n".getBytes());
+
+        SnapshotDatabase.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectTruncatedSnapshot() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        SnapshotDatabase.write(new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10))),
+                Arrays.asList(new Course("Android"))), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+
+        SnapshotDatabase.open(file);
+    }
+
+    @Test
+    public void shouldRejectSnapshotTruncatedInsideDictionary() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        SnapshotDatabase.write(sampleDatabase(), file);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        int firstUserName = bytes.getInt(bytes.getInt(44));
+        Files.write(file, Arrays.copyOf(bytes.array(), firstUserName + 6));
+
+        try {
+            SnapshotDatabase.open(file);
+            fail("Expected IOException");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString(file.toString()));
+        }
+    }
+
+    @Test
+    public void shouldRejectDictionaryStringRunningPastEndOfFile() throws IOException {
+        Path file = temporaryFolder.newFile().toPath();
+        SnapshotDatabase.write(sampleDatabase(), file);
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file));
+        bytes.putInt(bytes.getInt(bytes.getInt(48)), 1_000_000);
+        Files.write(file, bytes.array());
+        SnapshotDatabase snapshot = SnapshotDatabase.open(file);
+
+        try {
+            snapshot.getAllCourses().get(0);
+            fail("Expected UncheckedIOException");
+        } catch (UncheckedIOException e) {
+            assertThat(e.getMessage(), containsString(file.toString()));
+            assertThat(e.getMessage(), containsString("length 1000000"));
+        }
+    }
+
+    private static InMemoryDatabase sampleDatabase() {
+        return new InMemoryDatabase(
+                Arrays.asList(new User("Jan", "Jan@gmail.com")),
+                Arrays.asList(new Signup("Jan", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10))),
+                Arrays.asList(new Course("Android")));
+    }
+
+    private static List<String> describeUsers(List<User> users) {
+        List<String> descriptions = new ArrayList<>();
+        for (User user : users) {
+            descriptions.add(user.getName() + " <" + user.getEmail() + ">");
+        }
+        return descriptions;
+    }
+
+    private static List<String> describeCourses(List<Course> courses) {
+        List<String> titles = new ArrayList<>();
+        for (Course course : courses) {
+            titles.add(course.getTitle());
+        }
+        return titles;
+    }
+}
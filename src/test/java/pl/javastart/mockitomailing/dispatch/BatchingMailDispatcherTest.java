@@ -0,0 +1,98 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class BatchingMailDispatcherTest {
+
+    CountingRelay relay;
+    long now;
+
+    @Before
+    public void init() {
+        relay = new CountingRelay();
+    }
+
+    @Test
+    public void shouldReduceRoundTripsByBatchSize() {
+        new SequentialMailDispatcher(relay).dispatch(mails(250));
+        int sequentialRoundTrips = relay.getRoundTrips();
+
+        relay = new CountingRelay();
+        List<MailSendResult> results = new BatchingMailDispatcher(relay, 100, Duration.ofMinutes(1)).dispatch(mails(250));
+
+        assertThat(sequentialRoundTrips, is(250));
+        assertThat(relay.getRoundTrips(), is(3));
+        assertThat(results.size(), is(250));
+        assertThat(relay.getDelivered(), is(mails(250).map(OutgoingMail::getEmailAddress).collect(Collectors.toList())));
+    }
+
+    @Test
+    public void shouldFlushBatchWhenMaxDelayElapsed() {
+        BatchingMailDispatcher dispatcher = new BatchingMailDispatcher(relay, 100, Duration.ofSeconds(1), () -> now);
+
+        dispatcher.dispatch(mails(10).peek(mail -> now += Duration.ofMillis(300).toNanos()));
+
+        assertThat(relay.getRoundTrips(), is(2));
+        assertThat(relay.getDelivered().size(), is(10));
+    }
+
+    @Test
+    public void shouldReportDeliveredPartOfFailedBatchAsSent() {
+        MailSystem failingOnFourthMail = (emailAddress, title, text) -> {
+            if (emailAddress.equals("user3@gmail.com")) {
+                throw new IllegalStateException("Relay unavailable");
+            }
+        };
+
+        List<MailSendResult> results = new BatchingMailDispatcher(failingOnFourthMail, 5, Duration.ofMinutes(1))
+                .dispatch(mails(5));
+
+        assertThat(results.stream().map(MailSendResult::isSuccess).collect(Collectors.toList()),
+                is(Arrays.asList(true, true, true, false, false)));
+        assertThat(results.get(3).getFailure().getMessage(), is("Relay unavailable"));
+    }
+
+    @Test
+    public void shouldSendMailsAloneWhenRelayRejectsWholeBatch() {
+        MailSystem rejectingBatches = new MailSystem() {
+            @Override
+            public void sendEmail(String emailAddress, String title, String text) {
+                if (emailAddress.equals("user1@gmail.com")) {
+                    throw new IllegalArgumentException("Mailbox unavailable");
+                }
+                relay.sendEmail(emailAddress, title, text);
+            }
+
+            @Override
+            public void sendBatch(Collection<OutgoingMail> mails) {
+                throw new IllegalStateException("Batch rejected");
+            }
+        };
+
+        List<MailSendResult> results = new BatchingMailDispatcher(rejectingBatches, 5, Duration.ofMinutes(1))
+                .dispatch(mails(3));
+
+        assertThat(results.stream().map(MailSendResult::isSuccess).collect(Collectors.toList()),
+                is(Arrays.asList(true, false, true)));
+        assertThat(relay.getDelivered(), is(Arrays.asList("user0@gmail.com", "user2@gmail.com")));
+    }
+
+    private Stream<OutgoingMail> mails(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new OutgoingMail("user" + i + "@gmail.com", "Title", "Message"));
+    }
+}
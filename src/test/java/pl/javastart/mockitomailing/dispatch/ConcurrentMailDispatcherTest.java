@@ -0,0 +1,107 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.fail;
+
+public class ConcurrentMailDispatcherTest {
+
+    private static final int MAX_IN_FLIGHT = 8;
+
+    AtomicInteger inFlight;
+    AtomicInteger maxObservedInFlight;
+    ConcurrentHashMap<String, Integer> sendsPerAddress;
+    MailSystem slowMailSystem;
+
+    @Before
+    public void init() {
+        inFlight = new AtomicInteger();
+        maxObservedInFlight = new AtomicInteger();
+        sendsPerAddress = new ConcurrentHashMap<>();
+
+        slowMailSystem = (emailAddress, title, text) -> {
+            maxObservedInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            if (emailAddress.startsWith("broken")) {
+                throw new IllegalStateException("Relay rejected " + emailAddress);
+            }
+            sendsPerAddress.merge(emailAddress, 1, Integer::sum);
+        };
+    }
+
+    @Test
+    public void shouldSendEveryMailExactlyOnceWithinInFlightLimit() {
+        ConcurrentMailDispatcher dispatcher = new ConcurrentMailDispatcher(slowMailSystem, MAX_IN_FLIGHT);
+
+        List<MailSendResult> results = dispatcher.dispatch(mails(100));
+
+        assertThat(results.size(), is(100));
+        assertThat(results.stream().allMatch(MailSendResult::isSuccess), is(true));
+        assertThat(sendsPerAddress.size(), is(100));
+        assertThat(sendsPerAddress.values().stream().allMatch(sends -> sends == 1), is(true));
+        assertThat(maxObservedInFlight.get(), is(both(greaterThan(1)).and(lessThanOrEqualTo(MAX_IN_FLIGHT))));
+    }
+
+    @Test
+    public void shouldReportFailuresWithoutAbortingRemainingMails() {
+        ConcurrentMailDispatcher dispatcher = new ConcurrentMailDispatcher(slowMailSystem, MAX_IN_FLIGHT);
+
+        List<MailSendResult> results = dispatcher.dispatch(Stream.concat(mails(20),
+                Stream.of(new OutgoingMail("broken@gmail.com", "Title", "Message"))));
+
+        List<MailSendResult> failures = results.stream()
+                .filter(result -> !result.isSuccess())
+                .collect(Collectors.toList());
+        assertThat(results.size(), is(21));
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0).getEmailAddress(), is("broken@gmail.com"));
+        assertThat(failures.get(0).getFailure(), is(instanceOf(IllegalStateException.class)));
+        assertThat(sendsPerAddress.size(), is(20));
+    }
+
+    @Test
+    public void shouldRethrowListenerFailureAfterInFlightMailsFinish() {
+        ConcurrentMailDispatcher dispatcher = new ConcurrentMailDispatcher(slowMailSystem, MAX_IN_FLIGHT);
+        IllegalStateException listenerFailure = new IllegalStateException("Listener failed");
+        AtomicInteger results = new AtomicInteger();
+
+        try {
+            dispatcher.dispatch(mails(20), result -> {
+                results.incrementAndGet();
+                if (result.getEmailAddress().equals("user3@gmail.com")) {
+                    throw listenerFailure;
+                }
+            });
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e, is(sameInstance(listenerFailure)));
+        }
+
+        assertThat(results.get(), is(20));
+        assertThat(inFlight.get(), is(0));
+    }
+
+    private Stream<OutgoingMail> mails(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new OutgoingMail("user" + i + "@gmail.com", "Title", "Message"));
+    }
+}
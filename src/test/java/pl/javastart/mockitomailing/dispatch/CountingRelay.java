@@ -0,0 +1,34 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class CountingRelay implements MailSystem {
+
+    private int roundTrips;
+    private List<String> delivered = new ArrayList<>();
+
+    @Override
+    public void sendEmail(String emailAddress, String title, String text) {
+        roundTrips++;
+        delivered.add(emailAddress);
+    }
+
+    @Override
+    public void sendBatch(Collection<OutgoingMail> mails) {
+        roundTrips++;
+        mails.forEach(mail -> delivered.add(mail.getEmailAddress()));
+    }
+
+    int getRoundTrips() {
+        return roundTrips;
+    }
+
+    List<String> getDelivered() {
+        return delivered;
+    }
+}
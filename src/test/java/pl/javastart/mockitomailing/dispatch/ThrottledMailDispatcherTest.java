@@ -0,0 +1,149 @@
+package pl.javastart.mockitomailing.dispatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import pl.javastart.mockitomailing.MailSystem;
+import pl.javastart.mockitomailing.model.OutgoingMail;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+public class ThrottledMailDispatcherTest {
+
+    private static final RetryPolicy FAST_RETRIES = new RetryPolicy(4, Duration.ofMillis(1), Duration.ofMillis(5));
+
+    ConcurrentHashMap<String, Integer> attemptsPerAddress;
+    ConcurrentHashMap<String, Integer> sendsPerAddress;
+    MailSystem flakyRelay;
+
+    @Before
+    public void init() {
+        attemptsPerAddress = new ConcurrentHashMap<>();
+        sendsPerAddress = new ConcurrentHashMap<>();
+
+        flakyRelay = (emailAddress, title, text) -> {
+            int attempt = attemptsPerAddress.merge(emailAddress, 1, Integer::sum);
+            if (emailAddress.startsWith("broken")) {
+                throw new IllegalStateException("Relay rejected " + emailAddress);
+            }
+            if (emailAddress.startsWith("throttled") && attempt < 3) {
+                throw new IllegalStateException("Relay throttled " + emailAddress);
+            }
+            sendsPerAddress.merge(emailAddress, 1, Integer::sum);
+        };
+    }
+
+    @Test
+    public void shouldRetryTransientFailuresAndDeadLetterPermanentOnes() {
+        ThrottledMailDispatcher dispatcher = new ThrottledMailDispatcher(flakyRelay,
+                new TokenBucket(10_000, 100), FAST_RETRIES, 4, 3);
+
+        List<MailSendResult> results = dispatcher.dispatch(Stream.of(
+                mails("user", 20),
+                mails("throttled", 5),
+                Stream.of(new OutgoingMail("broken@gmail.com", "Title", "Message")),
+                mails("late", 20))
+                .flatMap(mails -> mails));
+
+        List<MailSendResult> failures = results.stream()
+                .filter(result -> !result.isSuccess())
+                .collect(Collectors.toList());
+        assertThat(results.size(), is(46));
+        assertThat(failures.size(), is(1));
+        assertThat(failures.get(0).getEmailAddress(), is("broken@gmail.com"));
+        assertThat(sendsPerAddress.size(), is(45));
+        assertThat(sendsPerAddress.values().stream().allMatch(sends -> sends == 1), is(true));
+        assertThat(attemptsPerAddress.get("throttled0@gmail.com"), is(3));
+
+        List<DeadLetter> deadLetters = dispatcher.drainDeadLetters();
+        assertThat(deadLetters.size(), is(1));
+        assertThat(deadLetters.get(0).getMail().getEmailAddress(), is("broken@gmail.com"));
+        assertThat(deadLetters.get(0).getAttempts(), is(FAST_RETRIES.getMaxAttempts()));
+        assertThat(dispatcher.getDeadLetters().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldNotExceedRateOfTokenBucket() {
+        ThrottledMailDispatcher dispatcher = new ThrottledMailDispatcher(flakyRelay,
+                new TokenBucket(500, 5), RetryPolicy.NONE, 8, 4);
+
+        long start = System.nanoTime();
+        List<MailSendResult> results = dispatcher.dispatch(mails("user", 55));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(results.size(), is(55));
+        assertThat(elapsedMillis, is(greaterThanOrEqualTo(95L)));
+    }
+
+    @Test
+    public void shouldBlockProducerWhenQueueIsFull() {
+        int queueCapacity = 2;
+        int workers = 1;
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger maxPending = new AtomicInteger();
+        MailSystem slowRelay = (emailAddress, title, text) -> {
+            maxPending.accumulateAndGet(produced.get() - completed.get(), Math::max);
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.incrementAndGet();
+        };
+        ThrottledMailDispatcher dispatcher = new ThrottledMailDispatcher(slowRelay,
+                new TokenBucket(10_000, 100), RetryPolicy.NONE, queueCapacity, workers);
+
+        List<MailSendResult> results = dispatcher.dispatch(mails("user", 50)
+                .peek(mail -> produced.incrementAndGet()));
+
+        assertThat(results.size(), is(50));
+        assertThat(maxPending.get(), is(lessThanOrEqualTo(queueCapacity + workers + 1)));
+    }
+
+    @Test
+    public void shouldRefillTokensAtConfiguredRate() {
+        long[] now = {0};
+        TokenBucket tokenBucket = new TokenBucket(1000, 2, () -> now[0]);
+
+        assertThat(tokenBucket.tryAcquire(), is(0L));
+        assertThat(tokenBucket.tryAcquire(), is(0L));
+        assertThat(tokenBucket.tryAcquire(), is(TimeUnit.MILLISECONDS.toNanos(1)));
+
+        now[0] += TimeUnit.MILLISECONDS.toNanos(1);
+        assertThat(tokenBucket.tryAcquire(), is(0L));
+
+        now[0] += TimeUnit.SECONDS.toNanos(10);
+        assertThat(tokenBucket.tryAcquire(), is(0L));
+        assertThat(tokenBucket.tryAcquire(), is(0L));
+        assertThat(tokenBucket.tryAcquire(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void shouldGrowBackoffExponentiallyWithJitterUpToLimit() {
+        RetryPolicy retryPolicy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofSeconds(1));
+        Random random = new Random(3);
+
+        for (int attempt = 1; attempt <= 6; attempt++) {
+            long ceiling = Math.min(TimeUnit.SECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(100) << (attempt - 1));
+            long backoff = retryPolicy.backoffNanos(attempt, random);
+            assertThat(backoff, is(both(greaterThanOrEqualTo(ceiling / 2)).and(lessThanOrEqualTo(ceiling))));
+        }
+    }
+
+    private Stream<OutgoingMail> mails(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new OutgoingMail(prefix + i + "@gmail.com", "Title", "Message"));
+    }
+}
@@ -0,0 +1,131 @@
+package pl.javastart.mockitomailing.flow;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class AsyncMappingProcessorTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    ExecutorService firstStage;
+    ExecutorService secondStage;
+
+    @Before
+    public void init() {
+        firstStage = Executors.newSingleThreadExecutor();
+        secondStage = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void shutdown() {
+        firstStage.shutdown();
+        secondStage.shutdown();
+    }
+
+    @Test
+    public void shouldMapAndFilterInOrderWithBoundedBuffering() {
+        AtomicInteger published = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxInPipeline = new AtomicInteger();
+
+        AsyncMappingProcessor<Integer, Integer> evenSquares = new AsyncMappingProcessor<>(
+                number -> number % 2 == 0 ? number * number : null, firstStage, BUFFER_SIZE);
+        AsyncMappingProcessor<Integer, Integer> slowConsumer = new AsyncMappingProcessor<>(number -> {
+            maxInPipeline.accumulateAndGet(published.get() - 2 * consumed.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return number;
+        }, secondStage, BUFFER_SIZE);
+        CollectingSubscriber<Integer, ?, List<Integer>> results = new CollectingSubscriber<>(Collectors.toList(), 4);
+
+        new StreamPublisher<>(() -> IntStream.range(0, 400)
+                .peek(number -> published.incrementAndGet())
+                .boxed())
+                .subscribe(evenSquares);
+        evenSquares.subscribe(slowConsumer);
+        slowConsumer.subscribe(results);
+
+        assertThat(results.join(), is(IntStream.range(0, 200)
+                .mapToObj(number -> 4 * number * number)
+                .collect(Collectors.toList())));
+        assertThat(published.get(), is(400));
+        assertThat(maxInPipeline.get(), is(lessThanOrEqualTo(6 * BUFFER_SIZE)));
+    }
+
+    @Test
+    public void shouldNotSignalSubscriberBeforeOnSubscribeReturns() {
+        AsyncMappingProcessor<Integer, Integer> identity = new AsyncMappingProcessor<>(number -> number,
+                Runnable::run, BUFFER_SIZE);
+        new StreamPublisher<>(() -> IntStream.range(0, 0).boxed()).subscribe(identity);
+        List<String> signals = new ArrayList<>();
+
+        identity.subscribe(new Flow.Subscriber<Integer>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(1);
+                signals.add("onSubscribe");
+            }
+
+            @Override
+            public void onNext(Integer item) {
+                signals.add("onNext");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                signals.add("onError");
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add("onComplete");
+            }
+        });
+
+        assertThat(signals, is(Arrays.asList("onSubscribe", "onComplete")));
+    }
+
+    @Test
+    public void shouldPropagateMappingFailureAndStopPublisher() {
+        AtomicInteger published = new AtomicInteger();
+        AsyncMappingProcessor<Integer, Integer> failing = new AsyncMappingProcessor<>(number -> {
+            if (number == 50) {
+                throw new IllegalStateException("Cannot render " + number);
+            }
+            return number;
+        }, firstStage, BUFFER_SIZE);
+        CollectingSubscriber<Integer, ?, List<Integer>> results = new CollectingSubscriber<>(Collectors.toList(), 4);
+
+        new StreamPublisher<>(() -> IntStream.range(0, 100_000)
+                .peek(number -> published.incrementAndGet())
+                .boxed())
+                .subscribe(failing);
+        failing.subscribe(results);
+
+        try {
+            results.getResult().join();
+        } catch (CompletionException e) {
+            assertThat(e.getCause().getMessage(), is("Cannot render 50"));
+        }
+        assertThat(results.getResult().isCompletedExceptionally(), is(true));
+        assertThat(published.get(), is(lessThanOrEqualTo(50 + 2 * BUFFER_SIZE)));
+    }
+}
@@ -0,0 +1,112 @@
+package pl.javastart.mockitomailing.metrics;
+
+import org.junit.Test;
+import pl.javastart.mockitomailing.EmailAddressChecker;
+import pl.javastart.mockitomailing.NotifierSender;
+import pl.javastart.mockitomailing.SyntheticData;
+import pl.javastart.mockitomailing.dispatch.ConcurrentMailDispatcher;
+import pl.javastart.mockitomailing.dispatch.MailSendResult;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.UserMessageProvider;
+import pl.javastart.mockitomailing.util.DateProvider;
+import pl.javastart.mockitomailing.util.EligibilityCalendar;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+public class InMemoryNotifierMetricsTest {
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+
+    @Test
+    public void shouldReportPercentilesWithinPowerOfTwoBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertThat(histogram.getCount(), is(1000L));
+        assertThat(histogram.getMaxNanos(), is(1_000_000L));
+        assertThat(histogram.getMeanNanos(), is(500_500L));
+        assertThat(histogram.getPercentileNanos(50), is(greaterThanOrEqualTo(500_000L)));
+        assertThat(histogram.getPercentileNanos(50), is(lessThan(1_000_000L)));
+        assertThat(histogram.getPercentileNanos(100), is(1_000_000L));
+    }
+
+    @Test
+    public void shouldRecordTotalsOfRun() {
+        SyntheticData data = new SyntheticData(500, 3, today, 11);
+        EmailAddressChecker rejectingEveryTenthUser = email -> !email.matches("user\\d*0@.*");
+        InMemoryNotifierMetrics metrics = new InMemoryNotifierMetrics();
+        NotifierSender notifierSender = new NotifierSender((emailAddress, title, text) -> {
+        }, data.toDatabase(), new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        }, new UserMessageProvider(), rejectingEveryTenthUser);
+        notifierSender.setMetrics(metrics);
+
+        List<MailSendResult> results = notifierSender.prepareAndSendMails();
+
+        List<Signup> acceptableSignups = data.getSignups()
+                .stream()
+                .filter(signup -> EligibilityCalendar.isAcceptable(today, signup.getAccessTo()))
+                .collect(Collectors.toList());
+        Set<String> usersWithAcceptableSignup = acceptableSignups
+                .stream()
+                .map(Signup::getUser)
+                .collect(Collectors.toSet());
+        long rejectedUsers = usersWithAcceptableSignup
+                .stream()
+                .filter(user -> !rejectingEveryTenthUser.checkmail(user + "@gmail.com"))
+                .count();
+
+        assertThat(results.size(), is(greaterThan(0)));
+        assertThat(rejectedUsers, is(greaterThan(0L)));
+        assertThat(metrics.getRuns(), is(1L));
+        assertThat(metrics.getSignupsScanned(), is((long) data.getSignups().size()));
+        assertThat(metrics.getAcceptableSignupsFound(), is((long) acceptableSignups.size()));
+        assertThat(metrics.getRecipientsRejectedByEmailChecker(), is(rejectedUsers));
+        assertThat(metrics.getMailsSent(), is((long) results.size()));
+        assertThat(metrics.getMailsFailed(), is(0L));
+        assertThat(metrics.getSendLatency().getCount(), is((long) results.size()));
+        assertThat(metrics.getRenderLatency().getCount(), is((long) results.size()));
+        assertThat(metrics.getLastRunNanos(), is(greaterThan(0L)));
+    }
+
+    @Test
+    public void shouldMeterSendsAndFailuresOfCustomDispatcher() {
+        SyntheticData data = new SyntheticData(500, 3, today, 11);
+        InMemoryNotifierMetrics metrics = new InMemoryNotifierMetrics();
+        NotifierSender notifierSender = new NotifierSender((emailAddress, title, text) -> {
+            if (emailAddress.matches("user\\d*7@.*")) {
+                throw new IllegalStateException("Mailbox unavailable");
+            }
+        }, data.toDatabase(), new DateProvider() {
+            @Override
+            public LocalDate getCurrentDate() {
+                return today;
+            }
+        }, new UserMessageProvider(), email -> true);
+        notifierSender.setMetrics(metrics);
+        notifierSender.setMailDispatcherFactory(mailSystem -> new ConcurrentMailDispatcher(mailSystem, 4));
+
+        List<MailSendResult> results = notifierSender.prepareAndSendMails();
+
+        long failures = results.stream().filter(result -> !result.isSuccess()).count();
+        assertThat(failures, is(greaterThan(0L)));
+        assertThat(metrics.getSendLatency().getCount(), is((long) results.size()));
+        assertThat(metrics.getSendCallsFailed(), is(failures));
+        assertThat(metrics.getMailsFailed(), is(failures));
+        assertThat(metrics.getMailsSent(), is(results.size() - failures));
+    }
+}
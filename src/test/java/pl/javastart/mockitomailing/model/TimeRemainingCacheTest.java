@@ -0,0 +1,52 @@
+package pl.javastart.mockitomailing.model;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class TimeRemainingCacheTest {
+
+    TimeRemainingCache cache = new TimeRemainingCache(2);
+    AtomicInteger computations = new AtomicInteger();
+    LocalDate today = LocalDate.of(2017, 10, 10);
+
+    @Test
+    public void shouldComputePhraseOncePerAccessToDay() {
+        assertEquals("2017-12-21", cache.get(today, LocalDate.of(2017, 12, 21), this::phrase));
+        assertEquals("2017-12-21", cache.get(today, LocalDate.of(2017, 12, 21), this::phrase));
+        assertEquals("2017-12-21", cache.get(today, LocalDate.of(2017, 12, 21), this::phrase));
+
+        assertEquals(1, computations.get());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void shouldForgetPhrasesWhenTodayChanges() {
+        cache.get(today, LocalDate.of(2017, 12, 21), this::phrase);
+        cache.get(today.plusDays(1), LocalDate.of(2017, 12, 21), this::phrase);
+
+        assertEquals(2, computations.get());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void shouldStopCachingWhenFull() {
+        cache.get(today, LocalDate.of(2017, 12, 21), this::phrase);
+        cache.get(today, LocalDate.of(2017, 12, 22), this::phrase);
+        cache.get(today, LocalDate.of(2017, 12, 23), this::phrase);
+        cache.get(today, LocalDate.of(2017, 12, 23), this::phrase);
+        cache.get(today, LocalDate.of(2017, 12, 21), this::phrase);
+
+        assertEquals(4, computations.get());
+        assertEquals(1, cache.getHits());
+    }
+
+    private String phrase(LocalDate today, LocalDate accessTo) {
+        computations.incrementAndGet();
+        return accessTo.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package pl.javastart.mockitomailing.model;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserMessageProviderBenchmark {
+
+    @Param({"3", "10"})
+    int otherCourses;
+
+    LocalDate today = LocalDate.of(2017, 10, 10);
+    UserMessageProvider userMessageProvider = new UserMessageProvider();
+    User user = new User("Jan", "Jan@gmail.com");
+    ByteBuffer messageBuffer = ByteBuffer.allocateDirect(1024);
+    Signup signup;
+    List<Signup> singleCourseSignups;
+    List<Signup> multiCourseSignups;
+
+    @Setup
+    public void setUp() {
+        signup = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10));
+        singleCourseSignups = Collections.singletonList(signup);
+        multiCourseSignups = new ArrayList<>();
+        multiCourseSignups.add(signup);
+        for (int i = 0; i < otherCourses; i++) {
+            multiCourseSignups.add(new Signup("Jan", "Kurs " + i, LocalDate.of(2017, 8, 10), today.plusDays(17 * i + 3)));
+        }
+    }
+
+    @Benchmark
+    public String prepareSingleCourseMessage() {
+        return userMessageProvider.prepareMessage(user, signup, singleCourseSignups, today);
+    }
+
+    @Benchmark
+    public String prepareMultiCourseMessage() {
+        return userMessageProvider.prepareMessage(user, signup, multiCourseSignups, today);
+    }
+
+    @Benchmark
+    public byte[] encodeMultiCourseMessage() {
+        return userMessageProvider.prepareMessage(user, signup, multiCourseSignups, today).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public ByteBuffer prepareMultiCourseMessageIntoBuffer() {
+        messageBuffer.clear();
+        return userMessageProvider.prepareMessage(user, signup, multiCourseSignups, today, messageBuffer);
+    }
+}
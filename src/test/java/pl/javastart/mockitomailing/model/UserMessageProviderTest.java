@@ -3,8 +3,12 @@ package pl.javastart.mockitomailing.model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
 
@@ -107,4 +111,111 @@ public class UserMessageProviderTest {
         assertThat(text, containsString( (char) 8226 + " Java Podstawy - 1 dzień"));
         assertThat(text, containsString((char) 8226 + " Android - 2 miesiące i 11 dni"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRenderSingleCourseMessageExactly() {
+        Signup signupOne = new Signup("Jan", "Android", LocalDate.of(2017, 10, 11), LocalDate.of(2017, 12, 21));
+        signupList.add(signupOne);
+
+        String text = userMessageProvider.prepareMessage(user, signupOne, signupList, today);
+        assertEquals("Cześć Jan,\nza 2 miesiące i 11 dni kończy Ci się dostęp do kursu, Android. " +
+                "Wykoszystaj maksymalnie ten czas!\nPozdrawiamy", text);
+    }
+
+    @Test
+    public void shouldRenderMultiCourseMessageExactly() {
+        Signup signupOne = new Signup("Jan", "Kurs Spring", LocalDate.of(2017, 10, 11), LocalDate.of(2017, 10, 11));
+        Signup signupTwo = new Signup("Jan", "Java Podstawy", LocalDate.of(2017, 10, 11), LocalDate.of(2017, 10, 11));
+        Signup signupThree = new Signup("Jan", "Android", LocalDate.of(2017, 10, 11), LocalDate.of(2017, 12, 21));
+        signupList.add(signupOne);
+        signupList.add(signupTwo);
+        signupList.add(signupThree);
+
+        String text = userMessageProvider.prepareMessage(user, signupOne, signupList, today);
+        String textAgain = userMessageProvider.prepareMessage(user, signupOne, signupList, today);
+        assertEquals("Cześć Jan,\nza 1 dzień kończy Ci się dostęp do kursu, Kurs Spring. " +
+                "Wykoszystaj maksymalnie ten czas!\nDostęp do Twoich pozostałych kursów: \n" +
+                (char) 8226 + " Java Podstawy - 1 dzień\n" +
+                (char) 8226 + " Android - 2 miesiące i 11 dni\nPozdrawiamy", text);
+        assertEquals(text, textAgain);
+    }
+
+    @Test
+    public void shouldRenderSameUtf8BytesAsStringIntoGrowingBuffer() {
+        User userWithEmoji = new User("Zażółć \uD83D\uDE00", "zazolc@gmail.com");
+        Signup signupOne = new Signup("Zażółć", "Kurs Spring", LocalDate.of(2017, 10, 10), LocalDate.of(2017, 10, 17));
+        Signup signupTwo = new Signup("Zażółć", "Wzorce projektowe", LocalDate.of(2017, 10, 10), LocalDate.of(2018, 1, 10));
+        signupList.add(signupOne);
+        signupList.add(signupTwo);
+
+        String text = userMessageProvider.prepareMessage(userWithEmoji, signupOne, signupList, today);
+        ByteBuffer encoded = userMessageProvider.prepareMessage(userWithEmoji, signupOne, signupList, today,
+                ByteBuffer.allocateDirect(16));
+
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), bytes);
+    }
+
+    @Test
+    public void shouldMeasureUtf8LengthWithoutRendering() {
+        User userWithEmoji = new User("Zażółć \uD83D\uDE00 \uD83D", "zazolc@gmail.com");
+        Signup signupOne = new Signup("Zażółć", "Kurs Spring", LocalDate.of(2017, 10, 10), LocalDate.of(2017, 10, 17));
+        Signup signupTwo = new Signup("Zażółć", "Wzorce projektowe", LocalDate.of(2017, 10, 10), LocalDate.of(2018, 1, 10));
+        signupList.add(signupOne);
+        signupList.add(signupTwo);
+
+        String text = userMessageProvider.prepareMessage(userWithEmoji, signupOne, signupList, today);
+
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length,
+                userMessageProvider.measureMessage(userWithEmoji, signupOne, signupList, today));
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length,
+                new UserMessageProvider(0).measureMessage(userWithEmoji, signupOne, signupList, today));
+    }
+
+    @Test
+    public void shouldReuseRenderedBodyForUsersWithSameSignupSet() {
+        UserMessageProvider uncachedProvider = new UserMessageProvider(0);
+        User otherUser = new User("Marian", "Marian@gmail.com");
+        List<Signup> otherSignupList = new ArrayList<>();
+        for (List<Signup> signups : Arrays.asList(signupList, otherSignupList)) {
+            signups.add(new Signup("any", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10)));
+            signups.add(new Signup("any", "Hibernate", LocalDate.of(2017, 8, 10), LocalDate.of(2018, 2, 1)));
+        }
+
+        String text = userMessageProvider.prepareMessage(user, signupList.get(0), signupList, today);
+        String otherText = userMessageProvider.prepareMessage(otherUser, otherSignupList.get(0), otherSignupList, today);
+        String otherTrigger = userMessageProvider.prepareMessage(user, signupList.get(1), signupList, today);
+
+        assertEquals(uncachedProvider.prepareMessage(user, signupList.get(0), signupList, today), text);
+        assertEquals(uncachedProvider.prepareMessage(otherUser, otherSignupList.get(0), otherSignupList, today), otherText);
+        assertEquals(uncachedProvider.prepareMessage(user, signupList.get(1), signupList, today), otherTrigger);
+        assertThat(otherText, containsString("Cześć Marian,"));
+        assertEquals(1, userMessageProvider.getBodyCache().getHits());
+        assertEquals(2, userMessageProvider.getBodyCache().getMisses());
+        assertEquals(1.0 / 3, userMessageProvider.getBodyCache().getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedBodies() {
+        UserMessageProvider smallCacheProvider = new UserMessageProvider(2);
+        for (int i = 0; i < 5; i++) {
+            Signup signup = new Signup("Jan", "Kurs " + i, LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10));
+            smallCacheProvider.prepareMessage(user, signup, Collections.singletonList(signup), today);
+        }
+
+        assertEquals(2, smallCacheProvider.getBodyCache().size());
+        assertEquals(5, smallCacheProvider.getBodyCache().getMisses());
+    }
+
+    @Test
+    public void shouldCacheBodyOfSignupWithoutCourse() {
+        Signup signup = new Signup("Jan", null, LocalDate.of(2017, 8, 10), LocalDate.of(2017, 10, 11));
+        List<Signup> signups = Collections.singletonList(signup);
+
+        String text = userMessageProvider.prepareMessage(user, signup, signups, today);
+
+        assertEquals(text, userMessageProvider.prepareMessage(user, signup, signups, today));
+        assertEquals(1, userMessageProvider.getBodyCache().getHits());
+    }
+}
@@ -0,0 +1,46 @@
+package pl.javastart.mockitomailing.util;
+
+import org.junit.Test;
+import pl.javastart.mockitomailing.model.NotificationThreshold;
+
+import java.time.LocalDate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+public class EligibilityCalendarTest {
+
+    @Test
+    public void shouldMatchChronoUnitRuleForEveryDayPair() {
+        for (LocalDate today = LocalDate.of(2019, 1, 1); today.isBefore(LocalDate.of(2021, 1, 1)); today = today.plusDays(1)) {
+            EligibilityCalendar calendar = EligibilityCalendar.of(today);
+            for (LocalDate accessTo = today.minusDays(10); accessTo.isBefore(today.plusMonths(6)); accessTo = accessTo.plusDays(1)) {
+                assertThat(today + " -> " + accessTo, calendar.isAcceptable((int) accessTo.toEpochDay()),
+                        is(EligibilityCalendar.isAcceptable(today, accessTo)));
+                assertThat(today + " -> " + accessTo, calendar.thresholdOf(accessTo),
+                        is(EligibilityCalendar.thresholdOf(today, accessTo)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldHandleMonthEndsAndLeapDays() {
+        EligibilityCalendar leapDay = EligibilityCalendar.of(LocalDate.of(2020, 2, 29));
+        assertThat(leapDay.thresholdOf(LocalDate.of(2020, 3, 1)), is(NotificationThreshold.ONE_DAY));
+        assertThat(leapDay.thresholdOf(LocalDate.of(2020, 3, 7)), is(NotificationThreshold.SEVEN_DAYS));
+        assertThat(leapDay.thresholdOf(LocalDate.of(2020, 3, 29)), is(NotificationThreshold.ONE_MONTH));
+        assertThat(leapDay.thresholdOf(LocalDate.of(2020, 5, 29)), is(NotificationThreshold.THREE_MONTHS));
+        assertThat(leapDay.thresholdOf(LocalDate.of(2020, 3, 28)), is(nullValue()));
+
+        EligibilityCalendar endOfJanuary = EligibilityCalendar.of(LocalDate.of(2020, 1, 31));
+        assertThat(endOfJanuary.thresholdOf(LocalDate.of(2020, 2, 29)), is(nullValue()));
+        assertThat(endOfJanuary.thresholdOf(LocalDate.of(2020, 3, 1)), is(NotificationThreshold.ONE_MONTH));
+        assertThat(endOfJanuary.thresholdOf(LocalDate.of(2020, 4, 30)), is(nullValue()));
+        assertThat(endOfJanuary.thresholdOf(LocalDate.of(2020, 5, 1)), is(NotificationThreshold.THREE_MONTHS));
+
+        EligibilityCalendar endOfNovember = EligibilityCalendar.of(LocalDate.of(2019, 11, 30));
+        assertThat(endOfNovember.thresholdOf(LocalDate.of(2020, 3, 1)), is(NotificationThreshold.THREE_MONTHS));
+        assertThat(endOfNovember.thresholdOf(LocalDate.of(2020, 2, 29)), is(nullValue()));
+    }
+}
@@ -0,0 +1,49 @@
+package pl.javastart.mockitomailing.util;
+
+import org.junit.Test;
+import pl.javastart.mockitomailing.database.ColumnarDatabase;
+import pl.javastart.mockitomailing.model.Course;
+import pl.javastart.mockitomailing.model.Signup;
+import pl.javastart.mockitomailing.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EntityCatalogTest {
+
+    @Test
+    public void shouldAssignDenseIdsInTableOrder() {
+        User jan = new User("Jan", "Jan@gmail.com");
+        User marian = new User("Marian", "Marian@gmail.com");
+        ColumnarDatabase database = new ColumnarDatabase(
+                Arrays.asList(jan, marian, new User("Jan", "other@gmail.com")),
+                Arrays.asList(
+                        new Signup("Marian", "Android", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10)),
+                        new Signup("Ghost", "Kurs Spring", LocalDate.of(2017, 8, 10), LocalDate.of(2017, 11, 10))),
+                Arrays.asList(new Course("Kurs Spring"), new Course("Android")));
+
+        EntityCatalog catalog = EntityCatalog.of(database);
+        List<int[]> signupIds = new ArrayList<>();
+        database.forEachCompactSignup(catalog.getUserNames(), catalog.getCourseNames(),
+                (userId, courseId, accessFrom, accessTo) -> signupIds.add(new int[]{userId, courseId}));
+
+        assertEquals(2, catalog.getUserCount());
+        assertSame(jan, catalog.userOf(0));
+        assertSame(marian, catalog.userOf(1));
+        assertEquals(2, catalog.getCourseCount());
+        assertEquals("Android", catalog.courseOf(1).getTitle());
+
+        assertEquals(1, signupIds.get(0)[0]);
+        assertEquals(1, signupIds.get(0)[1]);
+        assertEquals(2, signupIds.get(1)[0]);
+        assertEquals(0, signupIds.get(1)[1]);
+        assertEquals("Ghost", catalog.getUserNames().nameOf(2));
+        assertNull(catalog.userOf(2));
+    }
+}